@@ -33,18 +33,26 @@ import io.myzticbean.finditemaddon.dependencies.ResidencePlugin;
 import io.myzticbean.finditemaddon.dependencies.WGPlugin;
 import io.myzticbean.finditemaddon.dependencies.BentoBoxPlugin;
 import io.myzticbean.finditemaddon.dependencies.CosmosCorePlugin;
+import io.myzticbean.finditemaddon.handlers.gui.Menu;
 import io.myzticbean.finditemaddon.handlers.gui.PlayerMenuUtility;
+import io.myzticbean.finditemaddon.handlers.gui.menus.ShopLoreRenderer;
+import io.myzticbean.finditemaddon.handlers.gui.menus.SearchMenuLiveUpdater;
 import io.myzticbean.finditemaddon.listeners.*;
 import io.myzticbean.finditemaddon.metrics.Metrics;
 import io.myzticbean.finditemaddon.quickshop.QSApi;
 import io.myzticbean.finditemaddon.quickshop.impl.QSHikariAPIHandler;
 import io.myzticbean.finditemaddon.quickshop.impl.QSReremakeAPIHandler;
+import io.myzticbean.finditemaddon.quickshop.index.ShopSearchIndex;
 import io.myzticbean.finditemaddon.scheduledtasks.Task15MinInterval;
 import io.myzticbean.finditemaddon.models.enums.PlayerPermsEnum;
 import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
 import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
 import io.myzticbean.finditemaddon.utils.log.Logger;
+import io.myzticbean.finditemaddon.utils.ShopOwnerNameCache;
 import io.myzticbean.finditemaddon.utils.UpdateChecker;
+import io.myzticbean.finditemaddon.utils.warp.EssentialsWarpsWatcher;
+import io.myzticbean.finditemaddon.utils.warp.NearestWarpCache;
+import io.myzticbean.finditemaddon.utils.warp.RegionNameCache;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import me.kodysimpson.simpapi.colors.ColorTranslator;
@@ -62,8 +70,10 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author myzticbean
@@ -113,7 +123,11 @@ public final class FindItemAddOn extends JavaPlugin {
     @Getter
     private static ExecutableItemsPlugin executableItemsPlugin;
 
-    private static final HashMap<Player, PlayerMenuUtility> playerMenuUtilityMap = new HashMap<>();
+    /**
+     * How long the search result of a player is kept after they close the search GUI
+     */
+    private static final long MENU_UTILITY_EVICTION_DELAY_TICKS = 60 * 20L;
+    private static final Map<UUID, PlayerMenuUtility> playerMenuUtilityMap = new ConcurrentHashMap<>();
 
     @Override
     public void onLoad() {
@@ -181,10 +195,13 @@ public final class FindItemAddOn extends JavaPlugin {
         // Plugin shutdown logic
         if(qsApi != null) {
             ShopSearchActivityStorageUtil.saveShopsToFile();
+            ShopSearchIndex.saveToFile();
         }
         else if(!ENABLE_TRIAL_PERIOD) {
             Logger.logError("Uh oh! Looks like either this plugin has crashed or you don't have QuickShop-Hikari or QuickShop-Reremake installed.");
         }
+        ShopSearchActivityStorageUtil.shutdown();
+        EssentialsWarpsWatcher.stop();
         VirtualThreadScheduler.shutdown();
         Logger.logInfo("Bye!");
     }
@@ -213,11 +230,10 @@ public final class FindItemAddOn extends JavaPlugin {
             qsApi.registerSubCommand();
         }
 
-        // Load all hidden shops from file
-        ShopSearchActivityStorageUtil.loadShopsFromFile();
-
-        // v2.0.0.0 - Migrating hiddenShops.json to shops.json
-        ShopSearchActivityStorageUtil.migrateHiddenShopsToShopsJson();
+        // Load all shops from file in background (also migrates hiddenShops.json to shops.json)
+        ShopSearchActivityStorageUtil.loadShopsFromFileAsync();
+        ShopOwnerNameCache.warmUpAsync();
+        ShopOwnerNameCache.setOwnerNameResolvedListener(SearchMenuLiveUpdater::ownerNameResolved);
 
         // Setup optional dependencies
         PlayerWarpsPlugin.setup();
@@ -229,6 +245,11 @@ public final class FindItemAddOn extends JavaPlugin {
         cosmosCorePlugin = new CosmosCorePlugin();
         executableItemsPlugin = new ExecutableItemsPlugin();
 
+        // Load the shop search index (needs ExecutableItems hooked to index custom item ids)
+        if(qsApi instanceof QSHikariAPIHandler) {
+            ShopSearchIndex.loadAsync();
+        }
+
         initExternalPluginEventListeners();
 
         // Initiate batch tasks
@@ -278,9 +299,13 @@ public final class FindItemAddOn extends JavaPlugin {
         this.getServer().getPluginManager().registerEvents(new PlayerCommandSendEventListener(), this);
         this.getServer().getPluginManager().registerEvents(new MenuListener(), this);
         this.getServer().getPluginManager().registerEvents(new PlayerJoinEventListener(), this);
+        this.getServer().getPluginManager().registerEvents(new PlayerQuitEventListener(), this);
+        this.getServer().getPluginManager().registerEvents(new BlockChangeEventListener(), this);
         // QS-Hikari specific event listeners
         this.getServer().getPluginManager().registerEvents(new ShopCreateEventListener(), this);
         this.getServer().getPluginManager().registerEvents(new ShopDeleteEventListener(), this);
+        this.getServer().getPluginManager().registerEvents(new ShopItemChangeEventListener(), this);
+        this.getServer().getPluginManager().registerEvents(new ShopStockPriceChangeEventListener(), this);
     }
 
     private void initExternalPluginEventListeners() {
@@ -289,22 +314,44 @@ public final class FindItemAddOn extends JavaPlugin {
             this.getServer().getPluginManager().registerEvents(new PWPlayerWarpRemoveEventListener(), this);
             this.getServer().getPluginManager().registerEvents(new PWPlayerWarpCreateEventListener(), this);
         }
+        if(EssentialsXPlugin.isEnabled()) {
+            this.getServer().getPluginManager().registerEvents(new EssentialsWarpModifyEventListener(), this);
+        }
+        if(WGPlugin.isEnabled()) {
+            this.getServer().getPluginManager().registerEvents(new WGRegionCommandListener(), this);
+        }
+        if(ResidencePlugin.isEnabled()) {
+            this.getServer().getPluginManager().registerEvents(new ResidenceChangeEventListener(), this);
+        }
     }
 
     public static void initConfigProvider() {
         configProvider = new ConfigProvider();
+        ShopLoreRenderer.compileLoreTemplate();
+        // nearest warps depend on 'nearest-warp-mode', the PlayerWarps and the Residence options
+        NearestWarpCache.clear();
+        RegionNameCache.clear();
     }
 
     public static PlayerMenuUtility getPlayerMenuUtility(Player p){
-        PlayerMenuUtility playerMenuUtility;
-        if(playerMenuUtilityMap.containsKey(p)) {
-            return playerMenuUtilityMap.get(p);
-        }
-        else {
-            playerMenuUtility = new PlayerMenuUtility(p);
-            playerMenuUtilityMap.put(p, playerMenuUtility);
-            return playerMenuUtility;
-        }
+        return playerMenuUtilityMap.computeIfAbsent(p.getUniqueId(), PlayerMenuUtility::new);
+    }
+
+    public static void removePlayerMenuUtility(UUID playerUUID) {
+        playerMenuUtilityMap.remove(playerUUID);
+    }
+
+    /**
+     * Removes the menu utility (and with it the search result) of a player who closed a menu,
+     * unless they have a menu open again by the end of the grace period
+     */
+    public static void scheduleMenuUtilityEviction(UUID playerUUID) {
+        Bukkit.getScheduler().runTaskLater(FindItemAddOn.getInstance(), () -> {
+            Player player = Bukkit.getPlayer(playerUUID);
+            if(player == null || !(player.getOpenInventory().getTopInventory().getHolder() instanceof Menu)) {
+                removePlayerMenuUtility(playerUUID);
+            }
+        }, MENU_UTILITY_EVICTION_DELAY_TICKS);
     }
 
     public static int getPluginID() {
@@ -94,6 +94,12 @@ public class ConfigProvider {
     public final String SHOP_GUI_GOTO_FIRST_PAGE_BUTTON_TEXT = ConfigSetup.get().getString(SHOP_GUI + "goto-first-page-button-text");
     public final String SHOP_GUI_GOTO_LAST_PAGE_BUTTON_MATERIAL = ConfigSetup.get().getString(SHOP_GUI + "goto-last-page-button-material");
     public final String SHOP_GUI_GOTO_LAST_PAGE_BUTTON_TEXT = ConfigSetup.get().getString(SHOP_GUI + "goto-last-page-button-text");
+    public final String SHOP_GUI_SORT_BUTTON_MATERIAL = ConfigSetup.get().getString(SHOP_GUI + "sort-button-material");
+    public final String SHOP_GUI_SORT_BUTTON_TEXT = ConfigSetup.get().getString(SHOP_GUI + "sort-button-text");
+    public final String SHOP_GUI_WORLD_FILTER_BUTTON_MATERIAL = ConfigSetup.get().getString(SHOP_GUI + "world-filter-button-material");
+    public final String SHOP_GUI_WORLD_FILTER_BUTTON_TEXT = ConfigSetup.get().getString(SHOP_GUI + "world-filter-button-text");
+    public final String SHOP_GUI_SOLD_OUT_SHOP_MATERIAL = ConfigSetup.get().getString(SHOP_GUI + "sold-out-shop-material");
+    public final String SHOP_GUI_SHOP_OWNER_UNKNOWN_TEXT = ConfigSetup.get().getString(SHOP_GUI + "shop-owner-unknown-text", "Unknown");
     public final String SHOP_GUI_BACK_BUTTON_CMD = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_CMD + "back-button-custom-model-data");
     public final String SHOP_GUI_NEXT_BUTTON_CMD = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_CMD + "next-button-custom-model-data");
     public final String SHOP_GUI_CLOSE_BUTTON_CMD = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_CMD + "close-button-custom-model-data");
@@ -102,8 +108,12 @@ public class ConfigProvider {
     public final String SHOP_GUI_FILLER_ITEM_CMD = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_CMD + "filler-item-custom-model-data");
     public final String SHOP_NAV_FIRST_PAGE_ALERT_MSG = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_NAVIGATION + "first-page-alert-message");
     public final String SHOP_NAV_LAST_PAGE_ALERT_MSG = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_NAVIGATION + "last-page-alert-message");
+    public final String SHOP_NAV_SEARCH_IN_PROGRESS_MSG = ConfigSetup.get().getString(SHOP_GUI + SHOP_GUI_NAVIGATION + "search-in-progress-message");
     public final boolean SHOP_GUI_USE_SHORTER_CURRENCY_FORMAT = ConfigSetup.get().getBoolean(SHOP_GUI + "use-shorter-currency-format");
+    public final boolean SHOP_GUI_USE_LIGHTWEIGHT_ICONS = ConfigSetup.get().getBoolean(SHOP_GUI + "use-lightweight-icons", true);
+    public final int SHOP_GUI_LIGHTWEIGHT_ICONS_ITEM_LORE_LINES = ConfigSetup.get().getInt(SHOP_GUI + "lightweight-icons-item-lore-lines", -1);
     public final int SHOP_PLAYER_VISIT_COOLDOWN_IN_MINUTES = ConfigSetup.get().getInt("shop-player-visit-cooldown-in-minutes");
+    public final int SHOP_PLAYER_VISIT_RAW_RETENTION_IN_DAYS = ConfigSetup.get().getInt("shop-player-visit-raw-retention-in-days", 30);
     public final boolean IGNORE_EMPTY_CHESTS = ConfigSetup.get().getBoolean("ignore-empty-chests");
     private final List<String> BLACKLISTED_WORLDS = (List<String>) ConfigSetup.get().getList("blacklisted-worlds");
     private final List<String> BLACKLISTED_MATERIALS = (List<String>) ConfigSetup.get().getList("blacklisted-materials");
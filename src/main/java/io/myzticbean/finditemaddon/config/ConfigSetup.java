@@ -40,7 +40,7 @@ public class ConfigSetup {
     private static File configFile;
     private static File sampleConfigFile;
     private static FileConfiguration configFileConfiguration;
-    private static final int CURRENT_CONFIG_VERSION = 21;
+    private static final int CURRENT_CONFIG_VERSION = 22;
 
     public static void setupConfig() {
         configFile = new File(FindItemAddOn.getInstance().getDataFolder(), "config.yml");
@@ -328,6 +328,20 @@ public class ConfigSetup {
                 configFileConfiguration.set("shop-gui.custom-model-data.filler-item-custom-model-data", "");
             }
 
+            // Config 22
+            if(configFileConfiguration.getInt("config-version") < 22) {
+                configFileConfiguration.set("shop-player-visit-raw-retention-in-days", 30);
+                configFileConfiguration.set("shop-gui.use-lightweight-icons", true);
+                configFileConfiguration.set("shop-gui.lightweight-icons-item-lore-lines", -1);
+                configFileConfiguration.set("shop-gui.sort-button-material", "HOPPER");
+                configFileConfiguration.set("shop-gui.sort-button-text", "&eSort: &f{SORT_ORDER}");
+                configFileConfiguration.set("shop-gui.world-filter-button-material", "COMPASS");
+                configFileConfiguration.set("shop-gui.world-filter-button-text", "&eWorld: &f{WORLD}");
+                configFileConfiguration.set("shop-gui.sold-out-shop-material", "");
+                configFileConfiguration.set("shop-gui.shop-owner-unknown-text", "Unknown");
+                configFileConfiguration.set("shop-gui.shop-navigation.search-in-progress-message", "&7Still searching for more shops, please wait...");
+            }
+
             // AT LAST
             // Moving debug-mode and config-version to the last
             final String DEBUG_MODE_OPTION = "debug-mode";
@@ -21,13 +21,20 @@ package io.myzticbean.finditemaddon.dependencies;
 import com.earth2me.essentials.Essentials;
 import io.myzticbean.finditemaddon.models.EssentialWarpModel;
 import io.myzticbean.finditemaddon.utils.log.Logger;
+import io.myzticbean.finditemaddon.utils.warp.NearestWarpCache;
+import io.myzticbean.finditemaddon.utils.warp.WarpGridIndex;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Hook for EssentialsX Plugin
@@ -38,7 +45,9 @@ import java.util.List;
 public class EssentialsXPlugin {
 
     private static Essentials essAPI = null;
-    private static List<EssentialWarpModel> allWarpsList = null;
+    /** All warps by lower case name */
+    private static volatile Map<String, EssentialWarpModel> warpsByName = null;
+    private static volatile WarpGridIndex<EssentialWarpModel> warpIndex = null;
 
     public static void setup() {
         if (Bukkit.getPluginManager().isPluginEnabled("Essentials")) {
@@ -57,37 +66,126 @@ public class EssentialsXPlugin {
         return essAPI;
     }
 
+    @Nullable
     public static List<EssentialWarpModel> getAllWarps() {
-        return allWarpsList;
+        Map<String, EssentialWarpModel> warps = warpsByName;
+        return warps != null ? new ArrayList<>(warps.values()) : null;
     }
 
-    public static void updateAllWarps() {
+    /**
+     * @return Index of all warps by world, or null if warps are not loaded yet
+     */
+    @Nullable
+    public static WarpGridIndex<EssentialWarpModel> getWarpIndex() {
+        return warpIndex;
+    }
+
+    public static synchronized void updateAllWarps() {
         if (!essAPI.isEnabled()) {
             return;
         }
 
         long start = System.currentTimeMillis();
         Collection<String> allWarps = EssentialsXPlugin.getAPI().getWarps().getList();
-        allWarpsList = new ArrayList<>();
+        Map<String, EssentialWarpModel> newWarpsByName = new ConcurrentHashMap<>();
+        WarpGridIndex<EssentialWarpModel> newWarpIndex = new WarpGridIndex<>();
 
         for (String warp : allWarps) {
-            addWarpToList(warp);
+            addWarpToList(warp, newWarpsByName, newWarpIndex);
         }
+        // publish both at once, so lookups never see a half built list or index
+        warpsByName = newWarpsByName;
+        warpIndex = newWarpIndex;
+        NearestWarpCache.clear();
 
         logUpdateCompletion(start);
     }
 
-    private static void addWarpToList(String warp) {
+    private static void addWarpToList(String warp, Map<String, EssentialWarpModel> warps, WarpGridIndex<EssentialWarpModel> index) {
         try {
             EssentialWarpModel essWarp = new EssentialWarpModel();
             essWarp.warpName = warp;
             essWarp.warpLoc = essAPI.getWarps().getWarp(warp);
-            allWarpsList.add(essWarp);
+            warps.put(warp.toLowerCase(Locale.ROOT), essWarp);
+            index.add(essWarp.warpLoc, essWarp);
         } catch (Exception ignored) {
             Logger.logError("Error adding warp to list: " + warp);
         }
     }
 
+    /**
+     * Re-reads a single warp from Essentials, removing it if Essentials no longer has it
+     * (or its world is not loaded). Does nothing until the warps are loaded.
+     * @param warpName Name of the warp, in any case
+     */
+    public static synchronized void updateWarp(String warpName) {
+        if (warpIndex == null || !essAPI.isEnabled()) {
+            return;
+        }
+        String actualWarpName = null;
+        for (String name : essAPI.getWarps().getList()) {
+            if (name.equalsIgnoreCase(warpName)) {
+                actualWarpName = name;
+                break;
+            }
+        }
+        Location warpLocation = null;
+        if (actualWarpName != null) {
+            try {
+                warpLocation = essAPI.getWarps().getWarp(actualWarpName);
+            } catch (Exception e) {
+                Logger.logDebugInfo("Could not read Essentials warp '" + actualWarpName + "': " + e.getMessage());
+            }
+        }
+        if (warpLocation != null) {
+            putWarp(actualWarpName, warpLocation);
+        } else {
+            removeWarp(warpName);
+        }
+    }
+
+    /**
+     * Adds or moves a single warp. Does nothing until the warps are loaded.
+     */
+    public static synchronized void putWarp(String warpName, Location warpLocation) {
+        if (warpIndex == null || warpLocation.getWorld() == null) {
+            return;
+        }
+        String warpKey = warpName.toLowerCase(Locale.ROOT);
+        EssentialWarpModel oldWarp = warpsByName.get(warpKey);
+        if (oldWarp != null && oldWarp.warpName.equals(warpName) && oldWarp.warpLoc.equals(warpLocation)) {
+            // nothing changed, e.g. the warp event and the file watcher both reported it
+            return;
+        }
+        EssentialWarpModel essWarp = new EssentialWarpModel();
+        essWarp.warpName = warpName;
+        essWarp.warpLoc = warpLocation.clone();
+        warpsByName.put(warpKey, essWarp);
+        if (oldWarp != null) {
+            warpIndex.remove(oldWarp);
+            NearestWarpCache.warpRemoved(oldWarp.warpName);
+        }
+        warpIndex.add(essWarp.warpLoc, essWarp);
+        NearestWarpCache.warpCreated(warpLocation.getWorld().getName(), warpLocation.getX(), warpLocation.getY(), warpLocation.getZ());
+        Logger.logDebugInfo("Essentials warp updated: " + warpName);
+    }
+
+    /**
+     * Removes a single warp. Does nothing until the warps are loaded.
+     * @param warpName Name of the warp, in any case
+     */
+    public static synchronized void removeWarp(String warpName) {
+        if (warpIndex == null) {
+            return;
+        }
+        EssentialWarpModel oldWarp = warpsByName.remove(warpName.toLowerCase(Locale.ROOT));
+        if (oldWarp != null) {
+            warpIndex.remove(oldWarp);
+            NearestWarpCache.warpRemoved(oldWarp.warpName);
+            Logger.logDebugInfo("Essentials warp removed: " + oldWarp.warpName);
+        }
+    }
+
     private static void logUpdateCompletion(long startTime) {
         long duration = System.currentTimeMillis() - startTime;
         Logger.logDebugInfo(String.format("Update complete for Essentials warps list! Found %d warps. Time took: %dms.",
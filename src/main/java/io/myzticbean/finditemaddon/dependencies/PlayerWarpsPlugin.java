@@ -23,12 +23,17 @@ import com.olziedev.playerwarps.api.warp.Warp;
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.models.enums.NearestWarpModeEnum;
 import io.myzticbean.finditemaddon.utils.log.Logger;
+import io.myzticbean.finditemaddon.utils.warp.NearestWarpCache;
+import io.myzticbean.finditemaddon.utils.warp.WarpGridIndex;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author myzticbean
@@ -37,9 +42,12 @@ import java.util.List;
 public class PlayerWarpsPlugin {
 
     private static boolean isEnabled = false;
-    private static List<Warp> allWarpsList = null;
     private static PlayerWarpsAPI playerWarpsAPI = null;
-    private static final String ALL_WARPS_LIST_CLASSPATH = PlayerWarpsPlugin.class.getCanonicalName() + ".allWarpsList";
+    private static final String WARP_INDEX_CLASSPATH = PlayerWarpsPlugin.class.getCanonicalName() + ".warpIndex";
+    /** All warps by world */
+    private static volatile WarpGridIndex<Warp> warpIndex = null;
+    /** Warps of each owner by world, for 'only-show-player-owned-warps' */
+    private static volatile Map<UUID, WarpGridIndex<Warp>> ownerWarpIndexes = Map.of();
 
     public static void setup() {
         if(Bukkit.getPluginManager().isPluginEnabled("PlayerWarps")) {
@@ -62,12 +70,20 @@ public class PlayerWarpsPlugin {
         return playerWarpsAPI;
     }
 
-    public static List<Warp> getAllWarps() {
-        if(!isEnabled) {
-            return Collections.emptyList();
-        }
-        PlayerWarpsAPI.getInstance(api -> allWarpsList = api.getPlayerWarps(false));
-        return allWarpsList;
+    /**
+     * @return Index of all warps by world, or null if warps are not loaded yet
+     */
+    @Nullable
+    public static WarpGridIndex<Warp> getWarpIndex() {
+        return warpIndex;
+    }
+
+    /**
+     * @return Index of the warps of an owner by world, or null if the owner has no warps
+     */
+    @Nullable
+    public static WarpGridIndex<Warp> getOwnerWarpIndex(UUID ownerUUID) {
+        return ownerWarpIndexes.get(ownerUUID);
     }
 
     public static void updateAllWarpsFromAPI() {
@@ -75,12 +91,54 @@ public class PlayerWarpsPlugin {
             long start = System.currentTimeMillis();
             // Issue #24 Fix: Changing api instance to callback
             PlayerWarpsAPI.getInstance(api -> {
-                allWarpsList = api.getPlayerWarps(false);
-                Logger.logDebugInfo("Update complete for PlayerWarps list! Found " + getAllWarps().size() + " warps. Time took: " + (System.currentTimeMillis() - start) + "ms.");
+                rebuildWarpIndex(api.getPlayerWarps(false));
+                Logger.logDebugInfo("Update complete for PlayerWarps list! Found " + warpIndex.size() + " warps. Time took: " + (System.currentTimeMillis() - start) + "ms.");
             });
         }
     }
 
+    private static synchronized void rebuildWarpIndex(List<Warp> warps) {
+        WarpGridIndex<Warp> newWarpIndex = new WarpGridIndex<>();
+        Map<UUID, WarpGridIndex<Warp>> newOwnerWarpIndexes = new ConcurrentHashMap<>();
+        for(Warp warp : warps) {
+            addToIndex(warp, newWarpIndex, newOwnerWarpIndexes);
+        }
+        ownerWarpIndexes = newOwnerWarpIndexes;
+        warpIndex = newWarpIndex;
+        NearestWarpCache.clear();
+    }
+
+    private static void addToIndex(Warp warp, WarpGridIndex<Warp> index, Map<UUID, WarpGridIndex<Warp>> ownerIndexes) {
+        String worldName = warp.getWarpLocation().getWorld();
+        if(worldName == null) {
+            return;
+        }
+        double x = warp.getWarpLocation().getX();
+        double y = warp.getWarpLocation().getY();
+        double z = warp.getWarpLocation().getZ();
+        index.add(worldName, x, y, z, warp);
+        UUID ownerUUID = getOwnerUUID(warp);
+        if(ownerUUID != null) {
+            ownerIndexes.computeIfAbsent(ownerUUID, k -> new WarpGridIndex<>()).add(worldName, x, y, z, warp);
+        }
+    }
+
+    private static boolean removeFromIndex(Warp warp, WarpGridIndex<Warp> index, Map<UUID, WarpGridIndex<Warp>> ownerIndexes) {
+        UUID ownerUUID = getOwnerUUID(warp);
+        if(ownerUUID != null) {
+            WarpGridIndex<Warp> ownerIndex = ownerIndexes.get(ownerUUID);
+            if(ownerIndex != null && ownerIndex.remove(warp) && ownerIndex.isEmpty()) {
+                ownerIndexes.remove(ownerUUID);
+            }
+        }
+        return index.remove(warp);
+    }
+
+    @Nullable
+    private static UUID getOwnerUUID(Warp warp) {
+        return warp.getWarpPlayer() != null ? warp.getWarpPlayer().getUUID() : null;
+    }
+
     public static void updateWarpsOnEventCall(Warp warp, boolean isRemoved) {
         Logger.logDebugInfo("Got a PlayerWarps event call... checking nearest-warp-mode");
         if(FindItemAddOn.getConfigProvider().NEAREST_WARP_MODE == NearestWarpModeEnum.PLAYER_WARPS.value()) {
@@ -91,34 +149,38 @@ public class PlayerWarpsPlugin {
             }
         }
         else {
-            Logger.logDebugInfo("No update required to '" + ALL_WARPS_LIST_CLASSPATH + "' as PlayerWarps integration is disabled.");
+            Logger.logDebugInfo("No update required to '" + WARP_INDEX_CLASSPATH + "' as PlayerWarps integration is disabled.");
         }
     }
 
-    private static void tryUpdateWarps(Warp warp, boolean isRemoved, int updateTrialSequence) {
+    private static synchronized void tryUpdateWarps(Warp warp, boolean isRemoved, int updateTrialSequence) {
         // Issue #21 Fix: Adding a NPE check
-        if(allWarpsList != null) {
+        if(warpIndex != null) {
             if(isRemoved) {
-                if(allWarpsList.contains(warp)) {
-                    allWarpsList.remove(warp);
-                    Logger.logDebugInfo("Warp removed from allWarpsList: " + warp.getWarpName());
+                if(removeFromIndex(warp, warpIndex, ownerWarpIndexes)) {
+                    NearestWarpCache.warpRemoved(warp.getWarpName());
+                    Logger.logDebugInfo("Warp removed from warpIndex: " + warp.getWarpName());
                 } else {
-                    Logger.logError("Error occurred while updating '" + ALL_WARPS_LIST_CLASSPATH + "'. Warp name: '" + warp.getWarpName() + "' does not exist!");
+                    Logger.logError("Error occurred while updating '" + WARP_INDEX_CLASSPATH + "'. Warp name: '" + warp.getWarpName() + "' does not exist!");
                 }
             }
             else {
-                allWarpsList.add(warp);
-                Logger.logDebugInfo("New warp added to allWarpsList: " + warp.getWarpName());
+                addToIndex(warp, warpIndex, ownerWarpIndexes);
+                if(warp.getWarpLocation().getWorld() != null) {
+                    NearestWarpCache.warpCreated(warp.getWarpLocation().getWorld(),
+                            warp.getWarpLocation().getX(), warp.getWarpLocation().getY(), warp.getWarpLocation().getZ());
+                }
+                Logger.logDebugInfo("New warp added to warpIndex: " + warp.getWarpName());
             }
         }
         else {
-            // Issue #21 Fix: forcing update of allWarpsList
+            // Issue #21 Fix: forcing update of the warp index
             if(updateTrialSequence == 1) {
                 updateAllWarpsFromAPI();
                 tryUpdateWarps(warp, isRemoved, 2);
             } else {
                 StringBuilder errorMsg = new StringBuilder();
-                errorMsg.append("Error occurred while updating '").append(ALL_WARPS_LIST_CLASSPATH).append("' as it is null! ")
+                errorMsg.append("Error occurred while updating '").append(WARP_INDEX_CLASSPATH).append("' as it is null! ")
                         .append("Please install PlayerWarps by Olzie-12 if you would like to use 'nearest-warp-mode' as 2. ")
                         .append("If PlayerWarps plugin is installed and issue persists, please contact the developer!");
                 Logger.logError(errorMsg.toString());
@@ -21,10 +21,12 @@ package io.myzticbean.finditemaddon.handlers.command;
 import io.myzticbean.finditemaddon.config.ConfigSetup;
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.handlers.gui.menus.FoundShopsMenu;
+import io.myzticbean.finditemaddon.handlers.gui.menus.ShopLoreRenderer;
 import io.myzticbean.finditemaddon.models.FoundShopItemModel;
 import io.myzticbean.finditemaddon.models.enums.PlayerPermsEnum;
 import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
 import io.myzticbean.finditemaddon.utils.json.HiddenShopStorageUtil;
+import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
 import io.myzticbean.finditemaddon.utils.log.Logger;
 import io.myzticbean.finditemaddon.utils.warp.WarpUtils;
 import io.myzticbean.finditemaddon.utils.EnchantedBookSearchUtil;
@@ -42,6 +44,9 @@ import org.bukkit.inventory.ItemStack;
 import org.maxgamer.quickshop.api.shop.Shop;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Handler for different parameters of /finditem command
@@ -51,6 +56,7 @@ public class CmdExecutorHandler {
 
     private static final String THIS_COMMAND_CAN_ONLY_BE_RUN_FROM_IN_GAME = "This command can only be run from in game";
     public static final String NO_PERMISSION = "&cNo permission!";
+    private static final String SHOPS_STILL_LOADING = "&cShops are still being loaded, please try again in a moment.";
 
     /**
      * Handles the main shop search process
@@ -69,6 +75,9 @@ public class CmdExecutorHandler {
             player.sendMessage(ColorTranslator.translateColorCodes(FindItemAddOn.getConfigProvider().PLUGIN_PREFIX + NO_PERMISSION));
             return;
         }
+        if (isShopsStillLoading(player)) {
+            return;
+        }
 
         // Show searching... message
         if (!StringUtils.isEmpty(FindItemAddOn.getConfigProvider().SHOP_SEARCH_LOADING_MSG)) {
@@ -90,8 +99,18 @@ public class CmdExecutorHandler {
             if(!FindItemAddOn.isQSReremakeInstalled() && FindItemAddOn.getQsApiInstance().isQSShopCacheImplemented()) {
                 Logger.logDebugInfo("Should run in async thread...");
                 Bukkit.getScheduler().runTaskAsynchronously(FindItemAddOn.getInstance(), () -> {
-                    List<FoundShopItemModel> searchResultList = FindItemAddOn.getQsApiInstance().fetchAllItemsFromAllShops(isBuying, player);
-                    this.openShopMenu(player, searchResultList, true, FindItemAddOn.getConfigProvider().NO_SHOP_FOUND_MSG);
+                    try {
+                        this.openStreamedShopMenu(player, FindItemAddOn.getConfigProvider().NO_SHOP_FOUND_MSG, firstPageConsumer ->
+                                FindItemAddOn.getQsApiInstance().fetchAllItemsFromAllShops(isBuying, player, FoundShopsMenu.MAX_ITEMS_PER_PAGE, firstPageConsumer));
+                    } catch (Exception e) {
+                        Logger.logError("Error during shop search: " + e.getMessage());
+                        e.printStackTrace();
+                        if (FindItemAddOn.getInstance().isEnabled()) {
+                            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), () -> {
+                                player.sendMessage(ColorTranslator.translateColorCodes(FindItemAddOn.getConfigProvider().PLUGIN_PREFIX + "&cAn error occurred during search. Check console for details."));
+                            });
+                        }
+                    }
                 });
             } else {
                 // Else run in MAIN thread
@@ -172,8 +191,8 @@ public class CmdExecutorHandler {
                 if(!FindItemAddOn.isQSReremakeInstalled() && FindItemAddOn.getQsApiInstance().isQSShopCacheImplemented()) {
                     VirtualThreadScheduler.runTaskAsync(() -> {
                         try {
-                            List<FoundShopItemModel> searchResultList = FindItemAddOn.getQsApiInstance().findItemBasedOnTypeFromAllShops(new ItemStack(mat), isBuying, player);
-                            this.openShopMenu(player, searchResultList, true, FindItemAddOn.getConfigProvider().NO_SHOP_FOUND_MSG);
+                            this.openStreamedShopMenu(player, FindItemAddOn.getConfigProvider().NO_SHOP_FOUND_MSG, firstPageConsumer ->
+                                    FindItemAddOn.getQsApiInstance().findItemBasedOnTypeFromAllShops(new ItemStack(mat), isBuying, player, FoundShopsMenu.MAX_ITEMS_PER_PAGE, firstPageConsumer));
                         } catch (Exception e) {
                             Logger.logError("Error during shop search: " + e.getMessage());
                             e.printStackTrace();
@@ -222,8 +241,13 @@ public class CmdExecutorHandler {
         }
         if (!searchResultList.isEmpty()) {
             if (synchronize) {
+                // Render the first page here on the search thread, so the MAIN thread only builds the items
+                List<ShopLoreRenderer.RenderedShopText> firstPageTexts = FoundShopsMenu.preRenderFirstPage(searchResultList);
                 Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), () -> {
-                    FoundShopsMenu menu = new FoundShopsMenu(FindItemAddOn.getPlayerMenuUtility(player), searchResultList);
+                    if (!player.isOnline()) {
+                        return;
+                    }
+                    FoundShopsMenu menu = new FoundShopsMenu(FindItemAddOn.getPlayerMenuUtility(player), searchResultList, firstPageTexts);
                     menu.open(searchResultList);
                 });
             } else {
@@ -237,6 +261,63 @@ public class CmdExecutorHandler {
         }
     }
 
+    /**
+     * Runs a search that can hand out its first page early (call from the search thread). The menu is opened with
+     * the first page as soon as it is known, and gets the complete result once the search is done.
+     * If the search does not hand out a first page, the menu is opened with the complete result as usual.
+     * If the search fails after the first page was handed out, the menu is completed with the first page.
+     * If the first page could not be opened, the menu is opened with the complete result instead.
+     * @param search Runs the search, passing the first page to the given consumer
+     */
+    private void openStreamedShopMenu(Player player, String errorMsg,
+                                      Function<Consumer<List<FoundShopItemModel>>, List<FoundShopItemModel>> search) {
+        AtomicReference<FoundShopsMenu> streamedMenu = new AtomicReference<>();
+        AtomicReference<List<FoundShopItemModel>> openedFirstPage = new AtomicReference<>();
+        Consumer<List<FoundShopItemModel>> firstPageConsumer = firstPage -> {
+            if (!FindItemAddOn.getInstance().isEnabled()) {
+                return;
+            }
+            openedFirstPage.set(firstPage);
+            List<ShopLoreRenderer.RenderedShopText> firstPageTexts = FoundShopsMenu.preRenderFirstPage(firstPage);
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), () -> {
+                if (!player.isOnline()) {
+                    return;
+                }
+                FoundShopsMenu menu = new FoundShopsMenu(FindItemAddOn.getPlayerMenuUtility(player), firstPage, firstPageTexts, true);
+                menu.open(firstPage);
+                streamedMenu.set(menu);
+            });
+        };
+        List<FoundShopItemModel> searchResultList;
+        try {
+            searchResultList = search.apply(firstPageConsumer);
+        } catch (RuntimeException e) {
+            if (openedFirstPage.get() == null) {
+                throw e;
+            }
+            Logger.logError("Error while searching shops, showing the first page only", e);
+            searchResultList = openedFirstPage.get();
+        }
+        List<FoundShopItemModel> completeSearchResult = searchResultList;
+        if (openedFirstPage.get() == null) {
+            this.openShopMenu(player, searchResultList, true, errorMsg);
+        } else if (FindItemAddOn.getInstance().isEnabled()) {
+            // runs after the task opening the first page, as tasks run in the order they were scheduled
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), () -> {
+                if (!player.isOnline()) {
+                    return;
+                }
+                FoundShopsMenu menu = streamedMenu.get();
+                if (menu == null) {
+                    // the first page could not be opened
+                    this.openShopMenu(player, completeSearchResult, false, errorMsg);
+                } else {
+                    menu.completeSearchResult(completeSearchResult);
+                }
+            });
+        }
+    }
+
     private boolean checkMaterialBlacklist(Material mat) {
         return FindItemAddOn.getConfigProvider().getBlacklistedMaterials().contains(mat);
     }
@@ -248,6 +329,9 @@ public class CmdExecutorHandler {
     public void handleHideShop(CommandSender commandSender) {
         if(commandSender instanceof Player player) {
             if(player.hasPermission(PlayerPermsEnum.FINDITEM_HIDESHOP.value())) {
+                if(isShopsStillLoading(player)) {
+                    return;
+                }
                 Block playerLookAtBlock = player.getTargetBlock(null, 3);
                 Logger.logDebugInfo("TargetBlock found: " + playerLookAtBlock.getType());
                 if(FindItemAddOn.isQSReremakeInstalled()) {
@@ -276,6 +360,9 @@ public class CmdExecutorHandler {
         else {
             Player player = (Player) commandSender;
             if(player.hasPermission(PlayerPermsEnum.FINDITEM_HIDESHOP.value())) {
+                if(isShopsStillLoading(player)) {
+                    return;
+                }
                 Block playerLookAtBlock = player.getTargetBlock(null, 5);
                 if(playerLookAtBlock != null) {
                     Logger.logDebugInfo("TargetBlock found: " + playerLookAtBlock.getType());
@@ -381,6 +468,20 @@ public class CmdExecutorHandler {
         }
     }
 
+    /**
+     * Shop data is loaded in background on startup. Until it is done, hidden shops
+     * and visit counts are unknown, so searches and hide/reveal are not allowed yet.
+     * @param player
+     * @return true if shops are still loading
+     */
+    private boolean isShopsStillLoading(Player player) {
+        if(ShopSearchActivityStorageUtil.isShopsLoaded()) {
+            return false;
+        }
+        player.sendMessage(ColorTranslator.translateColorCodes(FindItemAddOn.getConfigProvider().PLUGIN_PREFIX + SHOPS_STILL_LOADING));
+        return true;
+    }
+
     /**
      * Handles hide shop for QuickShop Reremake
      * @param shop
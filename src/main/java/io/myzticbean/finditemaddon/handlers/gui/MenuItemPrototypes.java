@@ -0,0 +1,275 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.handlers.gui;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.config.ConfigProvider;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+import me.kodysimpson.simpapi.colors.ColorTranslator;
+import org.apache.commons.lang3.StringUtils;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.profile.PlayerProfile;
+import org.bukkit.profile.PlayerTextures;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URL;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Navigation, sort and filter buttons and filler item of the GUI, built once per config load.
+ * Menus take clones of these instead of building (and decoding skins for) their own.
+ * @author myzticbean
+ */
+record MenuItemPrototypes(ConfigProvider builtFrom, @Nullable ItemStack fillerItem, ItemStack backButton,
+                          ItemStack firstPageButton, ItemStack nextButton, ItemStack lastPageButton,
+                          ItemStack closeInvButton, @Nullable ItemStack sortButton, @Nullable ItemStack worldFilterButton) {
+
+    private static final Gson gson = new Gson();
+    private static final String BACK_BUTTON_SKIN_ID = "eyJ0ZXh0dXJlcyI6eyJTS0lOIjp7InVybCI6Imh0dHA6Ly90ZXh0dXJlcy5taW5lY3JhZnQubmV0L3RleHR1cmUvZjZkYWI3MjcxZjRmZjA0ZDU0NDAyMTkwNjdhMTA5YjVjMGMxZDFlMDFlYzYwMmMwMDIwNDc2ZjdlYjYxMjE4MCJ9fX0=";
+    private static final String FIRST_PAGE_BUTTON_SKIN_ID = "eyJ0ZXh0dXJlcyI6eyJTS0lOIjp7InVybCI6Imh0dHA6Ly90ZXh0dXJlcy5taW5lY3JhZnQubmV0L3RleHR1cmUvOTI5M2E2MDcwNTAzMTcyMDcxZjM1ZjU4YzgyMjA0ZTgxOGNkMDY1MTg2OTAxY2ExOWY3ZGFkYmRhYzE2NWU0NCJ9fX0=";
+    private static final String NEXT_BUTTON_SKIN_ID = "eyJ0ZXh0dXJlcyI6eyJTS0lOIjp7InVybCI6Imh0dHA6Ly90ZXh0dXJlcy5taW5lY3JhZnQubmV0L3RleHR1cmUvOGFhMTg3ZmVkZTg4ZGUwMDJjYmQ5MzA1NzVlYjdiYTQ4ZDNiMWEwNmQ5NjFiZGM1MzU4MDA3NTBhZjc2NDkyNiJ9fX0=";
+    private static final String LAST_PAGE_BUTTON_SKIN_ID = "eyJ0ZXh0dXJlcyI6eyJTS0lOIjp7InVybCI6Imh0dHA6Ly90ZXh0dXJlcy5taW5lY3JhZnQubmV0L3RleHR1cmUvMWRhNDRjNzY3Y2NhMjU4NjFkM2E1MmZlMTdjMjY0MjhlNjYwZWUyM2RjMGQ3OTNiZjdiZDg2ZWEyMDJmNzAzZCJ9fX0=";
+
+    private static volatile MenuItemPrototypes current;
+    private static Boolean isServerVersion_1_21_5_OrAbove;
+
+    /**
+     * @return Prototypes for the current config, rebuilt if the config was reloaded since
+     */
+    static MenuItemPrototypes get() {
+        ConfigProvider configProvider = FindItemAddOn.getConfigProvider();
+        MenuItemPrototypes prototypes = current;
+        if (prototypes == null || prototypes.builtFrom() != configProvider) {
+            synchronized (MenuItemPrototypes.class) {
+                prototypes = current;
+                if (prototypes == null || prototypes.builtFrom() != configProvider) {
+                    prototypes = build(configProvider);
+                    current = prototypes;
+                }
+            }
+        }
+        return prototypes;
+    }
+
+    @Nullable
+    static ItemStack cloneOf(@Nullable ItemStack prototype) {
+        return prototype == null ? null : prototype.clone();
+    }
+
+    private static MenuItemPrototypes build(ConfigProvider configProvider) {
+        Logger.logDebugInfo("Building GUI buttons and filler item");
+        return new MenuItemPrototypes(
+                configProvider,
+                createFillerItem(configProvider),
+                createButton(configProvider.SHOP_GUI_BACK_BUTTON_MATERIAL, BACK_BUTTON_SKIN_ID,
+                        configProvider.SHOP_GUI_BACK_BUTTON_TEXT, configProvider.SHOP_GUI_BACK_BUTTON_CMD, "Back Button"),
+                createButton(configProvider.SHOP_GUI_GOTO_FIRST_PAGE_BUTTON_MATERIAL, FIRST_PAGE_BUTTON_SKIN_ID,
+                        configProvider.SHOP_GUI_GOTO_FIRST_PAGE_BUTTON_TEXT, configProvider.SHOP_GUI_GOTO_FIRST_PAGE_BUTTON_CMD, "Goto First Page Button"),
+                createButton(configProvider.SHOP_GUI_NEXT_BUTTON_MATERIAL, NEXT_BUTTON_SKIN_ID,
+                        configProvider.SHOP_GUI_NEXT_BUTTON_TEXT, configProvider.SHOP_GUI_NEXT_BUTTON_CMD, "Next Button"),
+                createButton(configProvider.SHOP_GUI_GOTO_LAST_PAGE_BUTTON_MATERIAL, LAST_PAGE_BUTTON_SKIN_ID,
+                        configProvider.SHOP_GUI_GOTO_LAST_PAGE_BUTTON_TEXT, configProvider.SHOP_GUI_GOTO_LAST_PAGE_BUTTON_CMD, "Goto Last Page Button"),
+                createCloseInvButton(configProvider),
+                createOptionalButton(configProvider.SHOP_GUI_SORT_BUTTON_MATERIAL),
+                createOptionalButton(configProvider.SHOP_GUI_WORLD_FILTER_BUTTON_MATERIAL));
+    }
+
+    @Nullable
+    private static ItemStack createFillerItem(ConfigProvider configProvider) {
+        Material fillerMaterial = configProvider.SHOP_GUI_FILLER_ITEM == null ? null : Material.getMaterial(configProvider.SHOP_GUI_FILLER_ITEM);
+        if (fillerMaterial == null) {
+            fillerMaterial = Material.GRAY_STAINED_GLASS_PANE;
+        }
+        if (fillerMaterial.isAir()) {
+            return null;
+        }
+        ItemStack fillerItem = new ItemStack(fillerMaterial);
+        ItemMeta fillerItemItemMeta = fillerItem.getItemMeta();
+        assert fillerItemItemMeta != null;
+        fillerItemItemMeta.setDisplayName(" ");
+        if(!StringUtils.isEmpty(configProvider.SHOP_GUI_FILLER_ITEM_CMD)) {
+            try {
+                fillerItemItemMeta.setCustomModelData(Integer.parseInt(configProvider.SHOP_GUI_FILLER_ITEM_CMD));
+                if(isServerVersion_1_21_5_OrAbove()) {
+                    var customModelDataComponent = fillerItemItemMeta.getCustomModelDataComponent();
+                    customModelDataComponent.setFloats(List.of(Float.parseFloat(configProvider.SHOP_GUI_FILLER_ITEM_CMD)));
+                    fillerItemItemMeta.setCustomModelDataComponent(customModelDataComponent);
+                }
+            } catch (Exception e) {
+                Logger.logError("Error setting custom model data", e);
+            }
+        }
+        fillerItem.setItemMeta(fillerItemItemMeta);
+        return fillerItem;
+    }
+
+    /**
+     * Creates a navigation button, a player head with the given skin if the configured material is invalid
+     */
+    private static ItemStack createButton(String materialName, String skinId, String text, String customModelData, String buttonName) {
+        Material buttonMaterial = materialName == null ? null : Material.getMaterial(materialName);
+        ItemStack button = buttonMaterial == null ? createPlayerHead(skinId) : new ItemStack(buttonMaterial);
+        applyTextAndCustomModelData(button, text, customModelData, buttonName);
+        return button;
+    }
+
+    /**
+     * Creates a button that is hidden if its material is not set. Its text is set by the menu.
+     */
+    @Nullable
+    private static ItemStack createOptionalButton(String materialName) {
+        Material buttonMaterial = StringUtils.isEmpty(materialName) ? null : Material.getMaterial(materialName);
+        return buttonMaterial == null || buttonMaterial.isAir() ? null : new ItemStack(buttonMaterial);
+    }
+
+    private static ItemStack createCloseInvButton(ConfigProvider configProvider) {
+        Material closeInvButtonMaterial = configProvider.SHOP_GUI_CLOSE_BUTTON_MATERIAL == null ? null : Material.getMaterial(configProvider.SHOP_GUI_CLOSE_BUTTON_MATERIAL);
+        if(closeInvButtonMaterial == null) {
+            closeInvButtonMaterial = Material.BARRIER;
+        }
+        ItemStack closeInvButton = new ItemStack(closeInvButtonMaterial);
+        applyTextAndCustomModelData(closeInvButton, configProvider.SHOP_GUI_CLOSE_BUTTON_TEXT, configProvider.SHOP_GUI_CLOSE_BUTTON_CMD, "Close Button");
+        return closeInvButton;
+    }
+
+    private static void applyTextAndCustomModelData(ItemStack button, String text, String customModelData, String buttonName) {
+        ItemMeta buttonMeta = button.getItemMeta();
+        if(buttonMeta == null) {
+            return;
+        }
+        if(!StringUtils.isEmpty(text)) {
+            buttonMeta.setDisplayName(ColorTranslator.translateColorCodes(text));
+        }
+        try {
+            if(!StringUtils.isEmpty(customModelData)) {
+                buttonMeta.setCustomModelData(Integer.parseInt(customModelData));
+            }
+        }
+        catch (NumberFormatException e) {
+            Logger.logDebugInfo("Invalid Custom Model Data for " + buttonName + " in config.yml");
+        }
+        button.setItemMeta(buttonMeta);
+    }
+
+    private static ItemStack createPlayerHead(String textureValue) {
+        ItemStack head = new ItemStack(Material.PLAYER_HEAD, 1);
+        SkullMeta meta = (SkullMeta) head.getItemMeta();
+        if (meta != null) {
+            PlayerProfile profile = Bukkit.createPlayerProfile(UUID.randomUUID(), null);
+            PlayerTextures textures = profile.getTextures();
+            try {
+                String decodedValue = new String(Base64.getDecoder().decode(textureValue));
+                Logger.logDebugInfo("Decoded Value: " + decodedValue);
+                String textureUrl = extractTextureUrl(decodedValue);
+                URL url = new URL(textureUrl);
+                textures.setSkin(url);
+            } catch (Exception e) {
+                Logger.logError(e);
+            }
+            profile.setTextures(textures);
+            meta.setOwnerProfile(profile);
+            head.setItemMeta(meta);
+        }
+        return head;
+    }
+
+    private static String extractTextureUrl(String decodedValue) {
+        JsonObject jsonObject = gson.fromJson(decodedValue, JsonObject.class);
+        return jsonObject
+                .getAsJsonObject("textures")
+                .getAsJsonObject("SKIN")
+                .get("url")
+                .getAsString();
+    }
+
+    /**
+     * Probes the server version once, the result is kept for the lifetime of the server
+     */
+    private static synchronized boolean isServerVersion_1_21_5_OrAbove() {
+        if (isServerVersion_1_21_5_OrAbove == null) {
+            isServerVersion_1_21_5_OrAbove = checkServerVersionIs_1_21_5_OrAbove();
+        }
+        return isServerVersion_1_21_5_OrAbove;
+    }
+
+    private static boolean checkServerVersionIs_1_21_5_OrAbove() {
+        String serverVersionString = Bukkit.getVersion();
+        // Example: "1.21-109-5a5035b (MC: 1.21)" or "git-Paper-123 (MC: 1.20.4)"
+        Logger.logDebugInfo("Full Server Version for check: " + serverVersionString);
+        Pattern pattern = Pattern.compile("\\(MC: ([\\d\\.]+)\\)");
+        Matcher matcher = pattern.matcher(serverVersionString);
+        if (matcher.find()) {
+            String mcVersionStr = matcher.group(1); // This will be "1.21" or "1.20.4" etc.
+            Logger.logDebugInfo("Extracted MC Version: " + mcVersionStr);
+            String[] versionParts = mcVersionStr.split("\\.");
+            // We need at least major and minor version numbers (e.g., "1.21")
+            if (versionParts.length >= 2) {
+                try {
+                    int major = Integer.parseInt(versionParts[0]);
+                    int minor = Integer.parseInt(versionParts[1]);
+                    int patch = 0; // Default patch to 0 if not specified (e.g., for "1.21")
+                    if (versionParts.length >= 3) {
+                        // Attempt to parse patch version, removing any non-numeric characters
+                        String patchStr = versionParts[2].replaceAll("[^0-9]", "");
+                        if (!patchStr.isEmpty()) {
+                            patch = Integer.parseInt(patchStr);
+                        }
+                    }
+                    // Target version: 1.21.5
+                    final int TARGET_MAJOR = 1;
+                    final int TARGET_MINOR = 21;
+                    final int TARGET_PATCH = 5;
+                    // Compare versions
+                    if (major > TARGET_MAJOR) {
+                        return true; // e.g., 2.x.x is > 1.21.5
+                    }
+                    if (major == TARGET_MAJOR) {
+                        if (minor > TARGET_MINOR) {
+                            return true; // e.g., 1.22.x is > 1.21.5
+                        }
+                        if (minor == TARGET_MINOR) {
+                            return patch >= TARGET_PATCH; // e.g., 1.21.5, 1.21.6 are >= 1.21.5
+                        }
+                    }
+                    // All other cases are older versions (e.g., 1.20.x, 1.21.0-1.21.4)
+                    return false;
+                } catch (NumberFormatException e) {
+                    Logger.logDebugInfo("Failed to parse MC version parts from: '" + mcVersionStr + "': " + e.getMessage());
+                    return false;
+                }
+            } else {
+                Logger.logDebugInfo("Could not parse MC version string '" + mcVersionStr + "' into at least major.minor parts.");
+                return false;
+            }
+        } else {
+            Logger.logDebugInfo("Could not find MC version pattern '(MC: ...)' in server version string: '" + serverVersionString + "'. Assuming older version or unable to determine.");
+            return false;
+        }
+    }
+}
@@ -19,25 +19,64 @@
 package io.myzticbean.finditemaddon.handlers.gui;
 
 import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import io.myzticbean.finditemaddon.models.enums.ShopSortOrderEnum;
+import io.myzticbean.finditemaddon.utils.WorldNameDictionary;
+import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
 import lombok.Getter;
-import lombok.Setter;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
  * @author myzticbean
  */
 public class PlayerMenuUtility {
+
+    private static final int ALL_WORLDS = -1;
+
     private UUID owner;
 
-    @Setter
+    /**
+     * Search result as shown, after the sort order and world filter picked in the GUI
+     */
     @Getter
     private List<FoundShopItemModel> playerShopSearchResult;
 
+    /**
+     * Search result as fetched
+     */
+    private List<FoundShopItemModel> fetchedShopSearchResult;
+
+    /**
+     * Index in the fetched search result of each shown shop
+     */
+    private int[] shownResultIndexes;
+
+    /**
+     * Icons already rendered for the current search result, by fetched result index
+     */
+    private ItemStack[] renderedShopItems;
+
+    @Getter
+    private ShopSortOrderEnum sortOrder = ShopSortOrderEnum.DEFAULT;
+
+    private int worldFilter = ALL_WORLDS;
+
+    /**
+     * Sort keys of the fetched search result, computed the first time a sort order is picked
+     */
+    private final Map<ShopSortOrderEnum, double[]> sortKeys = new EnumMap<>(ShopSortOrderEnum.class);
+
     public PlayerMenuUtility(Player owner) {
         this.owner = owner.getUniqueId();
     }
@@ -46,6 +85,190 @@ public class PlayerMenuUtility {
         this.owner = owner;
     }
 
+    public void setPlayerShopSearchResult(List<FoundShopItemModel> playerShopSearchResult) {
+        if (playerShopSearchResult != null) {
+            // own copy, as shops in it are replaced when they change
+            playerShopSearchResult = new ArrayList<>(playerShopSearchResult);
+        }
+        this.playerShopSearchResult = playerShopSearchResult;
+        this.fetchedShopSearchResult = playerShopSearchResult;
+        this.shownResultIndexes = null;
+        this.renderedShopItems = playerShopSearchResult == null ? null : new ItemStack[playerShopSearchResult.size()];
+        this.sortOrder = ShopSortOrderEnum.DEFAULT;
+        this.worldFilter = ALL_WORLDS;
+        this.sortKeys.clear();
+    }
+
+    /**
+     * Sets the complete search result after the search result was set with only its first page.
+     * Icons already rendered for the first page are kept.
+     *
+     * @param playerShopSearchResult The complete search result, starting with the shops of the first page
+     */
+    public void completePlayerShopSearchResult(List<FoundShopItemModel> playerShopSearchResult) {
+        ItemStack[] firstPageItems = renderedShopItems;
+        setPlayerShopSearchResult(playerShopSearchResult);
+        if (firstPageItems != null && renderedShopItems != null) {
+            System.arraycopy(firstPageItems, 0, renderedShopItems, 0, Math.min(firstPageItems.length, renderedShopItems.length));
+        }
+    }
+
+    /**
+     * Replaces a shown shop with its updated version, e.g. after its price or stock changed
+     */
+    public void replaceShownShop(int resultIndex, FoundShopItemModel updatedShop) {
+        int fetchedIndex = toFetchedIndex(resultIndex);
+        if (fetchedShopSearchResult == null || fetchedIndex < 0 || fetchedIndex >= fetchedShopSearchResult.size()) {
+            return;
+        }
+        fetchedShopSearchResult.set(fetchedIndex, updatedShop);
+        if (playerShopSearchResult != fetchedShopSearchResult) {
+            playerShopSearchResult.set(resultIndex, updatedShop);
+        }
+        // price and stock keys are outdated now
+        sortKeys.clear();
+    }
+
+    /**
+     * Switches the shown search result to the next sort order
+     * @param playerLocation Location to sort by distance from
+     */
+    public void cycleSortOrder(Location playerLocation) {
+        sortOrder = sortOrder.next();
+        updateShownResult(playerLocation);
+    }
+
+    /**
+     * Switches the shown search result to the next world that has shops in the search result,
+     * or back to all worlds after the last one
+     * @param playerLocation Location to sort by distance from
+     */
+    public void cycleWorldFilter(Location playerLocation) {
+        if (fetchedShopSearchResult == null) {
+            return;
+        }
+        int[] resultWorlds = fetchedShopSearchResult.stream()
+                .mapToInt(foundShop -> foundShop.getShopLocationKey().worldId())
+                .distinct()
+                .sorted()
+                .toArray();
+        int nextWorld = ALL_WORLDS;
+        for (int resultWorld : resultWorlds) {
+            if (resultWorld > worldFilter) {
+                nextWorld = resultWorld;
+                break;
+            }
+        }
+        worldFilter = nextWorld;
+        updateShownResult(playerLocation);
+    }
+
+    /**
+     * @return Name of the world the shown search result is filtered by, or null if it is not filtered
+     */
+    @Nullable
+    public String getWorldFilterName() {
+        return worldFilter == ALL_WORLDS ? null : WorldNameDictionary.nameOf(worldFilter);
+    }
+
+    private void updateShownResult(Location playerLocation) {
+        if (fetchedShopSearchResult == null) {
+            return;
+        }
+        if (sortOrder == ShopSortOrderEnum.DEFAULT && worldFilter == ALL_WORLDS) {
+            playerShopSearchResult = fetchedShopSearchResult;
+            shownResultIndexes = null;
+            return;
+        }
+        double[] keys = sortOrder == ShopSortOrderEnum.DEFAULT ? null : getSortKeys(sortOrder, playerLocation);
+        int[] indexes = new int[fetchedShopSearchResult.size()];
+        int shownCount = 0;
+        for (int i = 0; i < fetchedShopSearchResult.size(); i++) {
+            if (worldFilter == ALL_WORLDS || fetchedShopSearchResult.get(i).getShopLocationKey().worldId() == worldFilter) {
+                indexes[shownCount++] = i;
+            }
+        }
+        Integer[] sortedIndexes = new Integer[shownCount];
+        for (int i = 0; i < shownCount; i++) {
+            sortedIndexes[i] = indexes[i];
+        }
+        if (keys != null) {
+            // stable, so shops with equal keys keep the order of the search
+            Arrays.sort(sortedIndexes, (a, b) -> Double.compare(keys[a], keys[b]));
+        }
+        shownResultIndexes = new int[shownCount];
+        List<FoundShopItemModel> shownResult = new ArrayList<>(shownCount);
+        for (int i = 0; i < shownCount; i++) {
+            shownResultIndexes[i] = sortedIndexes[i];
+            shownResult.add(fetchedShopSearchResult.get(sortedIndexes[i]));
+        }
+        playerShopSearchResult = shownResult;
+    }
+
+    /**
+     * Sort keys, ascending. Distance keys are computed every time as the player moves.
+     */
+    private double[] getSortKeys(ShopSortOrderEnum order, Location playerLocation) {
+        double[] keys = order == ShopSortOrderEnum.DISTANCE ? null : sortKeys.get(order);
+        if (keys != null) {
+            return keys;
+        }
+        keys = new double[fetchedShopSearchResult.size()];
+        int playerWorld = playerLocation.getWorld() == null ? ALL_WORLDS : WorldNameDictionary.idOf(playerLocation.getWorld().getName());
+        for (int i = 0; i < keys.length; i++) {
+            FoundShopItemModel foundShop = fetchedShopSearchResult.get(i);
+            keys[i] = switch (order) {
+                case PRICE_LOW_TO_HIGH -> foundShop.getShopPrice();
+                case PRICE_HIGH_TO_LOW -> -foundShop.getShopPrice();
+                case STOCK_HIGH_TO_LOW -> -foundShop.getRemainingStockOrSpace();
+                case VISITS -> -ShopSearchActivityStorageUtil.getPlayerVisitCount(foundShop.getShopLocation());
+                case DISTANCE -> distanceSquared(foundShop.getShopLocationKey(), playerWorld, playerLocation);
+                case DEFAULT -> i;
+            };
+        }
+        if (order != ShopSortOrderEnum.DISTANCE) {
+            sortKeys.put(order, keys);
+        }
+        return keys;
+    }
+
+    private static double distanceSquared(ShopLocationKey shopLocationKey, int playerWorld, Location playerLocation) {
+        if (shopLocationKey.worldId() != playerWorld) {
+            // shops in other worlds go last
+            return Double.MAX_VALUE;
+        }
+        double dx = shopLocationKey.blockX() - playerLocation.getX();
+        double dy = shopLocationKey.blockY() - playerLocation.getY();
+        double dz = shopLocationKey.blockZ() - playerLocation.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Nullable
+    public ItemStack getRenderedShopItem(int resultIndex) {
+        int fetchedIndex = toFetchedIndex(resultIndex);
+        if (renderedShopItems == null || fetchedIndex < 0 || fetchedIndex >= renderedShopItems.length) {
+            return null;
+        }
+        return renderedShopItems[fetchedIndex];
+    }
+
+    public void cacheRenderedShopItem(int resultIndex, ItemStack item) {
+        int fetchedIndex = toFetchedIndex(resultIndex);
+        if (renderedShopItems != null && fetchedIndex >= 0 && fetchedIndex < renderedShopItems.length) {
+            renderedShopItems[fetchedIndex] = item;
+        }
+    }
+
+    /**
+     * @return Index in the fetched search result of a shown shop, -1 if there is no such shop
+     */
+    private int toFetchedIndex(int resultIndex) {
+        if (shownResultIndexes == null) {
+            return resultIndex;
+        }
+        return resultIndex < shownResultIndexes.length ? shownResultIndexes[resultIndex] : -1;
+    }
+
     @Nullable
     public Player getOwner() {
         return Bukkit.getPlayer(owner);
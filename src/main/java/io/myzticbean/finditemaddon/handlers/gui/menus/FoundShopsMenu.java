@@ -18,27 +18,21 @@
  */
 package io.myzticbean.finditemaddon.handlers.gui.menus;
 
-import com.bekvon.bukkit.residence.protection.ClaimedResidence;
-import com.olziedev.playerwarps.api.warp.Warp;
 import io.myzticbean.finditemaddon.config.ConfigProvider;
 import io.myzticbean.finditemaddon.dependencies.EssentialsXPlugin;
-import io.myzticbean.finditemaddon.dependencies.PlayerWarpsPlugin;
-import io.myzticbean.finditemaddon.dependencies.ResidencePlugin;
-import io.myzticbean.finditemaddon.dependencies.WGPlugin;
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.handlers.gui.PaginatedMenu;
 import io.myzticbean.finditemaddon.handlers.gui.PlayerMenuUtility;
 import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
 import io.myzticbean.finditemaddon.models.enums.CustomCmdPlaceholdersEnum;
 import io.myzticbean.finditemaddon.models.enums.PlayerPermsEnum;
-import io.myzticbean.finditemaddon.models.enums.ShopLorePlaceholdersEnum;
 import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
-import io.myzticbean.finditemaddon.utils.LocationUtils;
+import io.myzticbean.finditemaddon.utils.ShopTeleportSpotCache;
 import io.myzticbean.finditemaddon.utils.log.Logger;
 import io.myzticbean.finditemaddon.utils.warp.EssentialWarpsUtil;
 import io.myzticbean.finditemaddon.utils.warp.PlayerWarpsUtil;
 import io.myzticbean.finditemaddon.utils.warp.ResidenceUtils;
-import io.myzticbean.finditemaddon.utils.warp.WGRegionUtils;
 import io.papermc.lib.PaperLib;
 import me.kodysimpson.simpapi.colors.ColorTranslator;
 import org.apache.commons.lang3.StringUtils;
@@ -46,21 +40,28 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
-import org.bukkit.OfflinePlayer;
-import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ArmorMeta;
+import org.bukkit.inventory.meta.BannerMeta;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.FireworkEffectMeta;
+import org.bukkit.inventory.meta.FireworkMeta;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.LeatherArmorMeta;
+import org.bukkit.inventory.meta.PotionMeta;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -72,12 +73,62 @@ public class FoundShopsMenu extends PaginatedMenu {
 
     public static final String SHOP_STOCK_UNLIMITED = "Unlimited";
     public static final String SHOP_STOCK_UNKNOWN = "Unknown";
-    private static final String NAMEDSPACE_KEY_LOCATION_DATA = "locationData";
+    private static final NamespacedKey SHOP_LOCATION_KEY = new NamespacedKey(FindItemAddOn.getInstance(), "shopLocation");
+    private static final NamespacedKey WARP_NAME_KEY = new NamespacedKey(FindItemAddOn.getInstance(), "warpName");
     private final ConfigProvider configProvider;
+    private final ShopLoreRenderer shopLoreRenderer;
+    private List<ShopLoreRenderer.RenderedShopText> preRenderedTexts;
+    /**
+     * True while only the first page is known and the search is still running
+     */
+    private boolean isSearchInProgress;
 
     public FoundShopsMenu(PlayerMenuUtility playerMenuUtility, List<FoundShopItemModel> searchResult) {
+        this(playerMenuUtility, searchResult, List.of(), false);
+    }
+
+    /**
+     * @param preRenderedTexts Text of the first shops, from {@link #preRenderFirstPage(List)}
+     */
+    public FoundShopsMenu(PlayerMenuUtility playerMenuUtility, List<FoundShopItemModel> searchResult,
+                          List<ShopLoreRenderer.RenderedShopText> preRenderedTexts) {
+        this(playerMenuUtility, searchResult, preRenderedTexts, false);
+    }
+
+    /**
+     * @param searchResult     The complete search result, or only its first page if the search is still in progress
+     * @param preRenderedTexts Text of the first shops, from {@link #preRenderFirstPage(List)}
+     * @param isSearchInProgress If the rest of the search result is added later by {@link #completeSearchResult(List)}
+     */
+    public FoundShopsMenu(PlayerMenuUtility playerMenuUtility, List<FoundShopItemModel> searchResult,
+                          List<ShopLoreRenderer.RenderedShopText> preRenderedTexts, boolean isSearchInProgress) {
         super(playerMenuUtility, searchResult);
         configProvider = FindItemAddOn.getConfigProvider();
+        shopLoreRenderer = new ShopLoreRenderer();
+        this.preRenderedTexts = preRenderedTexts;
+        this.isSearchInProgress = isSearchInProgress;
+    }
+
+    /**
+     * Sets the complete search result of a menu opened with only the first page. Does nothing if the
+     * player does not have this menu open anymore.
+     *
+     * @param searchResult The complete search result, starting with the shops of the first page
+     */
+    public void completeSearchResult(List<FoundShopItemModel> searchResult) {
+        if (!isSearchInProgress || !isOpen()) {
+            return;
+        }
+        isSearchInProgress = false;
+        playerMenuUtility.completePlayerShopSearchResult(searchResult);
+    }
+
+    /**
+     * Renders the lore of the first page of a search result. Meant to be called on the search thread,
+     * so that opening the menu on the main thread only has to build the items.
+     */
+    public static List<ShopLoreRenderer.RenderedShopText> preRenderFirstPage(List<FoundShopItemModel> searchResult) {
+        return new ShopLoreRenderer().renderAsync(searchResult, MAX_ITEMS_PER_PAGE);
     }
 
     @Override
@@ -121,13 +172,21 @@ public class FoundShopsMenu extends PaginatedMenu {
     }
 
     /**
-     * Handles clicks on navigation buttons
+     * Handles clicks on navigation, sort and filter buttons
      * 
      * @param event The InventoryClickEvent
      * @param slot  The clicked slot number
-     * @return true if a navigation button was clicked, false otherwise
+     * @return true if a bottom bar slot other than the close button was clicked, false otherwise
      */
     private boolean handleNavigationClick(InventoryClickEvent event, int slot) {
+        if (isSearchInProgress && (slot == 47 || slot == 51 || slot == 52 || slot == 53)) {
+            // only the first page is known until the search is complete
+            if (!StringUtils.isEmpty(configProvider.SHOP_NAV_SEARCH_IN_PROGRESS_MSG)) {
+                event.getWhoClicked().sendMessage(ColorTranslator.translateColorCodes(
+                        configProvider.PLUGIN_PREFIX + configProvider.SHOP_NAV_SEARCH_IN_PROGRESS_MSG));
+            }
+            return true;
+        }
         return switch (slot) {
             case 45 -> {
                 handleMenuClickForNavToPrevPage(event);
@@ -145,10 +204,63 @@ public class FoundShopsMenu extends PaginatedMenu {
                 handleMenuClickForNavToNextPage(event);
                 yield true;
             }
+            case 47 -> {
+                if (sortButton != null) {
+                    playerMenuUtility.cycleSortOrder(event.getWhoClicked().getLocation());
+                    showFirstPageOfShownResult();
+                }
+                yield true;
+            }
+            case 51 -> {
+                if (worldFilterButton != null) {
+                    playerMenuUtility.cycleWorldFilter(event.getWhoClicked().getLocation());
+                    showFirstPageOfShownResult();
+                }
+                yield true;
+            }
+            case 48, 50 -> true;
             default -> false;
         };
     }
 
+    /**
+     * Shows the first page after the sort order or world filter was changed
+     */
+    private void showFirstPageOfShownResult() {
+        page = 0;
+        updateSortAndFilterButtons();
+        if (sortButton != null) {
+            inventory.setItem(47, sortButton);
+        }
+        if (worldFilterButton != null) {
+            inventory.setItem(51, worldFilterButton);
+        }
+        showPage(playerMenuUtility.getPlayerShopSearchResult());
+    }
+
+    /**
+     * Sets the current sort order and world filter as the text of their buttons
+     */
+    private void updateSortAndFilterButtons() {
+        if (sortButton != null) {
+            setButtonText(sortButton, StringUtils.defaultIfEmpty(configProvider.SHOP_GUI_SORT_BUTTON_TEXT, "&eSort: &f{SORT_ORDER}")
+                    .replace("{SORT_ORDER}", playerMenuUtility.getSortOrder().value()));
+        }
+        if (worldFilterButton != null) {
+            String worldFilterName = playerMenuUtility.getWorldFilterName();
+            setButtonText(worldFilterButton, StringUtils.defaultIfEmpty(configProvider.SHOP_GUI_WORLD_FILTER_BUTTON_TEXT, "&eWorld: &f{WORLD}")
+                    .replace("{WORLD}", worldFilterName != null ? worldFilterName : "All worlds"));
+        }
+    }
+
+    private void setButtonText(@NotNull ItemStack button, @NotNull String text) {
+        ItemMeta buttonMeta = button.getItemMeta();
+        if (buttonMeta != null) {
+            buttonMeta.setDisplayName(ColorTranslator.translateColorCodes(text));
+            button.setItemMeta(buttonMeta);
+        }
+    }
+
     /**
      * Handles clicks on shop items in the inventory
      * 
@@ -157,50 +269,49 @@ public class FoundShopsMenu extends PaginatedMenu {
      */
     private void handleShopItemClick(@NotNull InventoryClickEvent event, Player player) {
         ItemStack item = event.getCurrentItem();
-        ItemMeta meta = item.getItemMeta();
-        NamespacedKey key = new NamespacedKey(FindItemAddOn.getInstance(), NAMEDSPACE_KEY_LOCATION_DATA);
-
-        // Check if the item has the required location data
-        if (!meta.getPersistentDataContainer().has(key, PersistentDataType.STRING)) {
-            Logger.logError("PersistentDataContainer doesn't have the right kind of data!");
+        PersistentDataContainer dataContainer = item.getItemMeta().getPersistentDataContainer();
+
+        Location shopLocation = null;
+        if (dataContainer.has(SHOP_LOCATION_KEY, ShopLocationDataType.INSTANCE)) {
+            shopLocation = dataContainer.get(SHOP_LOCATION_KEY, ShopLocationDataType.INSTANCE);
+            if (shopLocation.getWorld() == null) {
+                Logger.logDebugInfo("World of shop at " + shopLocation.toVector() + " is not loaded!");
+                shopLocation = null;
+            }
+        }
+        String warpName = dataContainer.get(WARP_NAME_KEY, PersistentDataType.STRING);
+        if (shopLocation == null && warpName == null) {
+            Logger.logDebugInfo(player.getName() + " clicked on an item without shop location or warp!");
             return;
         }
 
-        String locData = meta.getPersistentDataContainer().get(key, PersistentDataType.STRING);
-        List<String> locDataList = Arrays.asList(locData.split("\\s*\\|\\|\\|\\s*"));
-
         // Handle direct teleportation to shop
-        if (configProvider.TP_PLAYER_DIRECTLY_TO_SHOP && locDataList.size() > 1) {
-            handleDirectShopTeleport(player, locDataList);
+        if (configProvider.TP_PLAYER_DIRECTLY_TO_SHOP && shopLocation != null) {
+            handleDirectShopTeleport(player, shopLocation);
         }
         // Handle teleportation to nearest warp
-        else if (configProvider.TP_PLAYER_TO_NEAREST_WARP && locDataList.size() == 1
-                && !locDataList.get(0).isEmpty()) {
-            handleWarpTeleport(player, locDataList.get(0));
+        else if (configProvider.TP_PLAYER_TO_NEAREST_WARP && !StringUtils.isEmpty(warpName)) {
+            handleWarpTeleport(player, warpName);
         }
 
         // Execute custom commands if enabled
-        handleCustomCommands(player, locDataList);
+        handleCustomCommands(player, shopLocation);
         player.closeInventory();
     }
 
     /**
      * Handles direct teleportation to a shop
      *
-     * @param player      The player to teleport
-     * @param locDataList List containing location data
+     * @param player       The player to teleport
+     * @param shopLocation Location of the shop block
      */
-    private void handleDirectShopTeleport(@NotNull Player player, List<String> locDataList) {
+    private void handleDirectShopTeleport(@NotNull Player player, @NotNull Location shopLocation) {
         // Check if player has permission to teleport
         if (!player.hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP.value())) {
             sendNoPermissionMessage(player);
             return;
         }
 
-        Location shopLocation = parseShopLocation(locDataList);
-        if (shopLocation == null)
-            return;
-
         // Check if player is teleporting to their own shop
         UUID shopOwner = ShopSearchActivityStorageUtil.getShopOwnerUUID(shopLocation);
         if (player.getUniqueId().equals(shopOwner) && !PlayerPermsEnum.canPlayerTpToOwnShop(player)) {
@@ -209,20 +320,38 @@ public class FoundShopsMenu extends PaginatedMenu {
             return;
         }
 
-        // Find a location around the shop to teleport to
-        Location locToTeleport = LocationUtils.findLocationAroundShop(shopLocation);
-
-        // Record the visit and set last location for Essentials
+        // Record the visit
         ShopSearchActivityStorageUtil.addPlayerVisitEntryAsync(shopLocation, player);
-        if (EssentialsXPlugin.isEnabled())
-            EssentialsXPlugin.setLastLocation(player);
 
-        // Apply teleport delay if necessary, otherwise teleport immediately
-        if (shouldApplyTeleportDelay(player)) {
-            applyTeleportDelay(player, locToTeleport);
-        } else {
-            PaperLib.teleportAsync(player, locToTeleport, PlayerTeleportEvent.TeleportCause.PLUGIN);
-        }
+        // Use the cached spot next to the shop, or find it without loading the shop's chunk on the main thread
+        ShopTeleportSpotCache.getSpotAsync(shopLocation).whenComplete((locToTeleport, error) -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (error != null) {
+                Logger.logError("Error while finding a spot to teleport to next to the shop at " + shopLocation + ": " + error.getMessage());
+                player.sendMessage(ColorTranslator.translateColorCodes(
+                        configProvider.PLUGIN_PREFIX + "&cAn error occurred while teleporting to the shop. Check console for details."));
+                return;
+            }
+            if (locToTeleport == null) {
+                if (!StringUtils.isEmpty(configProvider.UNSAFE_SHOP_AREA_MSG)) {
+                    player.sendMessage(ColorTranslator.translateColorCodes(
+                            configProvider.PLUGIN_PREFIX + configProvider.UNSAFE_SHOP_AREA_MSG));
+                }
+                return;
+            }
+            // Set last location for Essentials
+            if (EssentialsXPlugin.isEnabled())
+                EssentialsXPlugin.setLastLocation(player);
+
+            // Apply teleport delay if necessary, otherwise teleport immediately
+            if (shouldApplyTeleportDelay(player)) {
+                applyTeleportDelay(player, locToTeleport);
+            } else {
+                PaperLib.teleportAsync(player, locToTeleport, PlayerTeleportEvent.TeleportCause.PLUGIN);
+            }
+        });
     }
 
     /**
@@ -248,16 +377,12 @@ public class FoundShopsMenu extends PaginatedMenu {
     /**
      * Executes custom commands if enabled
      * 
-     * @param player      The player who triggered the commands
-     * @param locDataList List containing location data
+     * @param player       The player who triggered the commands
+     * @param shopLocation Location of the shop block, or null if the icon has none
      */
-    private void handleCustomCommands(Player player, List<String> locDataList) {
+    private void handleCustomCommands(Player player, @Nullable Location shopLocation) {
         if (configProvider.CUSTOM_CMDS_RUN_ENABLED && !configProvider.CUSTOM_CMDS_LIST.isEmpty()
-                && locDataList.size() > 1) {
-            Location shopLocation = parseShopLocation(locDataList);
-            if (shopLocation == null)
-                return;
-
+                && shopLocation != null) {
             for (String cmd : configProvider.CUSTOM_CMDS_LIST) {
                 Bukkit.dispatchCommand(Bukkit.getConsoleSender(),
                         replaceCustomCmdPlaceholders(cmd, player, shopLocation));
@@ -265,22 +390,6 @@ public class FoundShopsMenu extends PaginatedMenu {
         }
     }
 
-    /**
-     * Parses location data into a Bukkit Location
-     * 
-     * @param locDataList List containing location data
-     * @return A Bukkit Location, or null if parsing fails
-     */
-    private @Nullable Location parseShopLocation(@NotNull List<String> locDataList) {
-        if (locDataList.size() <= 1)
-            return null;
-        World world = Bukkit.getWorld(locDataList.get(0));
-        int locX = Integer.parseInt(locDataList.get(1));
-        int locY = Integer.parseInt(locDataList.get(2));
-        int locZ = Integer.parseInt(locDataList.get(3));
-        return new Location(world, locX, locY, locZ);
-    }
-
     /**
      * Sends a no permission message to the player
      * 
@@ -333,7 +442,7 @@ public class FoundShopsMenu extends PaginatedMenu {
     private void handleMenuClickForNavToNextPage(InventoryClickEvent event) {
         if (!((index + 1) >= super.playerMenuUtility.getPlayerShopSearchResult().size())) {
             page = page + 1;
-            super.open(super.playerMenuUtility.getPlayerShopSearchResult());
+            showPage(super.playerMenuUtility.getPlayerShopSearchResult());
         } else {
             if (!StringUtils.isEmpty(configProvider.SHOP_NAV_LAST_PAGE_ALERT_MSG)) {
                 event.getWhoClicked().sendMessage(
@@ -357,7 +466,7 @@ public class FoundShopsMenu extends PaginatedMenu {
             }
         } else {
             page = page - 1;
-            super.open(super.playerMenuUtility.getPlayerShopSearchResult());
+            showPage(super.playerMenuUtility.getPlayerShopSearchResult());
         }
     }
 
@@ -376,7 +485,7 @@ public class FoundShopsMenu extends PaginatedMenu {
             }
         } else {
             page = 0;
-            super.open(super.playerMenuUtility.getPlayerShopSearchResult());
+            showPage(super.playerMenuUtility.getPlayerShopSearchResult());
         }
     }
 
@@ -396,7 +505,7 @@ public class FoundShopsMenu extends PaginatedMenu {
                 page = (int) Math.ceil(totalPages);
                 Logger.logDebugInfo("Ceiling page value: " + page);
             }
-            super.open(super.playerMenuUtility.getPlayerShopSearchResult());
+            showPage(super.playerMenuUtility.getPlayerShopSearchResult());
         } else {
             if (!StringUtils.isEmpty(configProvider.SHOP_NAV_LAST_PAGE_ALERT_MSG)) {
                 event.getWhoClicked().sendMessage(
@@ -415,244 +524,258 @@ public class FoundShopsMenu extends PaginatedMenu {
     @Override
     public void setMenuItems(List<FoundShopItemModel> foundShops) {
         // Add the bottom navigation bar to the menu
+        updateSortAndFilterButtons();
         addMenuBottomBar();
+        setPageItems(foundShops);
+        SearchMenuLiveUpdater.register(this);
+    }
 
-        // If no shops were found, return early
-        if (foundShops == null || foundShops.isEmpty()) {
+    /**
+     * @return true if this menu is the inventory its owner has open
+     */
+    boolean isOpen() {
+        Player owner = playerMenuUtility.getOwner();
+        return inventory != null && owner != null && owner.getOpenInventory().getTopInventory().getHolder() == this;
+    }
+
+    /**
+     * Re-reads price and stock/space of the changed shops on the current page and updates their icons
+     *
+     * @param changedShops Shops whose price or stock changed
+     */
+    void refreshChangedShops(Set<ShopLocationKey> changedShops) {
+        List<FoundShopItemModel> foundShops = playerMenuUtility.getPlayerShopSearchResult();
+        if (foundShops == null) {
             return;
         }
-
-        int maxItemsPerPage = MAX_ITEMS_PER_PAGE;
-        // Iterate through the slots for this page
-        for (int guiSlotCounter = 0; guiSlotCounter < maxItemsPerPage; guiSlotCounter++) {
-            // Calculate the index in the foundShops list for the current slot
-            index = maxItemsPerPage * page + guiSlotCounter;
-            if (index >= foundShops.size()) {
-                break;
-            }
-
-            FoundShopItemModel foundShop = foundShops.get(index);
+        boolean canTeleport = configProvider.TP_PLAYER_DIRECTLY_TO_SHOP
+                && playerMenuUtility.getOwner().hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP.value());
+        int slot = 0;
+        for (int resultIndex = MAX_ITEMS_PER_PAGE * page;
+             resultIndex < foundShops.size() && slot < MAX_ITEMS_PER_PAGE; resultIndex++) {
+            FoundShopItemModel foundShop = foundShops.get(resultIndex);
             if (foundShop == null) {
                 continue;
             }
-
-            // Create an ItemStack for the shop and add it to the inventory
-            ItemStack item = createShopItem(foundShop);
-            inventory.addItem(item);
+            if (changedShops.contains(foundShop.getShopLocationKey())) {
+                FoundShopItemModel updatedShop = FindItemAddOn.getQsApiInstance().refreshFoundShop(foundShop);
+                if (updatedShop != null) {
+                    playerMenuUtility.replaceShownShop(resultIndex, updatedShop);
+                    inventory.setItem(slot, createAndCacheShopItem(
+                            resultIndex, updatedShop, shopLoreRenderer.render(updatedShop, true), canTeleport));
+                }
+            }
+            slot++;
         }
     }
 
     /**
-     * Creates an ItemStack representing a shop
-     * 
-     * @param foundShop The shop to create an item for
-     * @return An ItemStack representing the shop
+     * Re-renders the icons on the current page of shops owned by the player whose name was just looked up
+     *
+     * @param ownerUUID Owner whose name is now cached
      */
-    private @NotNull ItemStack createShopItem(@NotNull FoundShopItemModel foundShop) {
-        // Create a new ItemStack based on the shop's item
-        ItemStack item = new ItemStack(foundShop.getItem().getType(), foundShop.getItem().getAmount());
-        ItemMeta meta = foundShop.getItem().getItemMeta();
-        if (meta == null) {
-            meta = Bukkit.getItemFactory().getItemMeta(item.getType());
+    void refreshShopsOfOwner(UUID ownerUUID) {
+        List<FoundShopItemModel> foundShops = playerMenuUtility.getPlayerShopSearchResult();
+        if (foundShops == null) {
+            return;
         }
-
-        List<String> lore = new ArrayList<>();
-        // Add lore to the item
-        addItemLore(lore, foundShop);
-
-        meta.setLore(lore);
-        // Set location data in the item's metadata
-        setLocationData(meta, foundShop);
-
-        // Preserve custom model data if it exists
-        if (foundShop.getItem().getItemMeta().hasCustomModelData()) {
-            meta.setCustomModelData(foundShop.getItem().getItemMeta().getCustomModelData());
+        boolean canTeleport = configProvider.TP_PLAYER_DIRECTLY_TO_SHOP
+                && playerMenuUtility.getOwner().hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP.value());
+        int slot = 0;
+        for (int resultIndex = MAX_ITEMS_PER_PAGE * page;
+             resultIndex < foundShops.size() && slot < MAX_ITEMS_PER_PAGE; resultIndex++) {
+            FoundShopItemModel foundShop = foundShops.get(resultIndex);
+            if (foundShop == null) {
+                continue;
+            }
+            if (ownerUUID.equals(foundShop.getShopOwner())) {
+                inventory.setItem(slot, createAndCacheShopItem(
+                        resultIndex, foundShop, shopLoreRenderer.render(foundShop, true), canTeleport));
+            }
+            slot++;
         }
-
-        item.setItemMeta(meta);
-        return item;
     }
 
     /**
-     * Adds lore to an item representing a shop
+     * Sets the shop slots of the current page, leaving the bottom bar as is
      * 
-     * @param lore      The list to add lore to
-     * @param foundShop The shop to create lore for
+     * @param foundShops List of found shops
      */
-    private void addItemLore(List<String> lore, FoundShopItemModel foundShop) {
-        // Add existing item lore
-        ItemMeta shopItemMeta = foundShop.getItem().getItemMeta();
-        if (shopItemMeta != null && shopItemMeta.hasLore()) {
-            for (String line : shopItemMeta.getLore()) {
-                lore.add(ColorTranslator.translateColorCodes(line));
-            }
-        }
+    @Override
+    protected void setPageItems(List<FoundShopItemModel> foundShops) {
+        int nextSlot = 0;
+        // If no shops were found, there is nothing to show
+        if (foundShops != null && !foundShops.isEmpty()) {
+            int maxItemsPerPage = MAX_ITEMS_PER_PAGE;
+            boolean canTeleport = configProvider.TP_PLAYER_DIRECTLY_TO_SHOP
+                    && playerMenuUtility.getOwner().hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP.value());
+            // Iterate through the slots for this page
+            for (int guiSlotCounter = 0; guiSlotCounter < maxItemsPerPage; guiSlotCounter++) {
+                // Calculate the index in the foundShops list for the current slot
+                index = maxItemsPerPage * page + guiSlotCounter;
+                if (index >= foundShops.size()) {
+                    break;
+                }
 
-        // Add shop info lore
-        for (String loreLine : configProvider.SHOP_GUI_ITEM_LORE) {
-            if (loreLine.contains(ShopLorePlaceholdersEnum.NEAREST_WARP.value())) {
-                String nearestWarpInfo = getNearestWarpInfo(foundShop);
-                lore.add(ColorTranslator.translateColorCodes(
-                        loreLine.replace(ShopLorePlaceholdersEnum.NEAREST_WARP.value(), nearestWarpInfo)));
-            } else {
-                lore.add(ColorTranslator.translateColorCodes(replaceLorePlaceholders(loreLine, foundShop)));
+                FoundShopItemModel foundShop = foundShops.get(index);
+                if (foundShop == null) {
+                    continue;
+                }
+                // Reuse the icon if it was rendered on an earlier visit to this page, else create it
+                ItemStack item = playerMenuUtility.getRenderedShopItem(index);
+                if (item == null) {
+                    item = createAndCacheShopItem(index, foundShop, getRenderedText(foundShop), canTeleport);
+                }
+                inventory.setItem(nextSlot++, item);
             }
         }
-
-        // Add teleport info if applicable
-        if (configProvider.TP_PLAYER_DIRECTLY_TO_SHOP
-                && playerMenuUtility.getOwner().hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP.value())) {
-            lore.add(ColorTranslator.translateColorCodes(configProvider.CLICK_TO_TELEPORT_MSG));
+        // Clear the slots left over from a fuller page
+        for (int slot = nextSlot; slot < MAX_ITEMS_PER_PAGE; slot++) {
+            inventory.setItem(slot, null);
         }
+        preRenderedTexts = List.of();
     }
 
     /**
-     * Finds the nearest warp or region to a shop based on the configuration
-     * 
-     * @param foundShop The shop to find the nearest warp/region for
-     * @return A string representing the nearest warp/region, or an error message if
-     *         none found
+     * Uses the text rendered on the search thread if there is one, else renders it now
      */
-    private String getNearestWarpInfo(FoundShopItemModel foundShop) {
-        int nearestWarpMode = configProvider.NEAREST_WARP_MODE;
-        switch (nearestWarpMode) {
-            case 1:
-                // EssentialsX warps
-                if (EssentialsXPlugin.isEnabled()) {
-                    String nearestEWarp = EssentialWarpsUtil.findNearestWarp(foundShop.getShopLocation());
-                    return (nearestEWarp != null && !StringUtils.isEmpty(nearestEWarp)) ? nearestEWarp
-                            : configProvider.NO_WARP_NEAR_SHOP_ERROR_MSG;
-                }
-                break;
-            case 2:
-                // PlayerWarps
-                if (PlayerWarpsPlugin.getIsEnabled()) {
-                    Warp nearestPlayerWarp = PlayerWarpsUtil.findNearestWarp(foundShop.getShopLocation(),
-                            foundShop.getShopOwner());
-                    return (nearestPlayerWarp != null) ? nearestPlayerWarp.getWarpName()
-                            : configProvider.NO_WARP_NEAR_SHOP_ERROR_MSG;
-                }
-                break;
-            case 3:
-                // WorldGuard regions
-                if (WGPlugin.isEnabled()) {
-                    String nearestWGRegion = new WGRegionUtils().findNearestWGRegion(foundShop.getShopLocation());
-                    return (nearestWGRegion != null && !StringUtils.isEmpty(nearestWGRegion)) ? nearestWGRegion
-                            : configProvider.NO_WG_REGION_NEAR_SHOP_ERROR_MSG;
-                }
-                break;
-            case 4:
-                // Residence plugin
-                if (ResidencePlugin.isEnabled()) {
-                    ClaimedResidence nearestResidence = ResidenceUtils
-                            .findNearestResidence(foundShop.getShopLocation());
-                    return (nearestResidence != null) ? ResidenceUtils.getResidenceName(nearestResidence)
-                            : configProvider.NO_RESIDENCE_NEAR_SHOP_ERROR_MSG;
-                }
-                break;
-            default:
-                Logger.logDebugInfo("Invalid value in 'nearest-warp-mode' in config.yml!");
-        }
-        return configProvider.NO_WARP_NEAR_SHOP_ERROR_MSG;
+    private ShopLoreRenderer.RenderedShopText getRenderedText(FoundShopItemModel foundShop) {
+        ShopLoreRenderer.RenderedShopText renderedText = index < preRenderedTexts.size() ? preRenderedTexts.get(index) : null;
+        // The owner name may have been looked up since the text was rendered on the search thread
+        return renderedText != null && !renderedText.isOwnerNamePending()
+                ? renderedText : shopLoreRenderer.render(foundShop, true);
     }
 
     /**
-     * Sets location data in the item's metadata
-     * 
-     * @param meta      The ItemMeta to set the data on
-     * @param foundShop The shop to get location data from
+     * Creates the icon of a shop and keeps it for later visits to the page, unless it shows the owner name placeholder
+     *
+     * @param resultIndex Index of the shop in the shown search result
      */
-    private void setLocationData(ItemMeta meta, FoundShopItemModel foundShop) {
-        NamespacedKey key = new NamespacedKey(FindItemAddOn.getInstance(), NAMEDSPACE_KEY_LOCATION_DATA);
-        String locData = "";
-
-        if (configProvider.TP_PLAYER_DIRECTLY_TO_SHOP) {
-            // Store exact coordinates for direct teleportation
-            Location shopLoc = foundShop.getShopLocation();
-            locData = String.format("%s|||%d|||%d|||%d", shopLoc.getWorld().getName(), shopLoc.getBlockX(),
-                    shopLoc.getBlockY(), shopLoc.getBlockZ());
-        } else if (configProvider.TP_PLAYER_TO_NEAREST_WARP) {
-            // Store nearest warp info for warp teleportation
-            locData = getNearestWarpInfo(foundShop);
-        }
-
-        meta.getPersistentDataContainer().set(key, PersistentDataType.STRING, locData);
+    private @NotNull ItemStack createAndCacheShopItem(int resultIndex, @NotNull FoundShopItemModel foundShop,
+                                                      @NotNull ShopLoreRenderer.RenderedShopText renderedText, boolean canTeleport) {
+        ItemStack item = createShopItem(foundShop, renderedText, canTeleport);
+        playerMenuUtility.cacheRenderedShopItem(resultIndex, renderedText.isOwnerNamePending() ? null : item);
+        return item;
     }
 
     /**
-     * Replaces all the placeholders in the Shop item lore in GUI
+     * Creates an ItemStack representing a shop
      * 
-     * @param text Line of lore
-     * @param shop Shop instance
-     * @return Line of lore replaced with placeholder values
+     * @param foundShop    The shop to create an item for
+     * @param renderedText Lore and teleport target for the shop
+     * @param canTeleport  If the click to teleport line should be added
+     * @return An ItemStack representing the shop
      */
-    private @NotNull String replaceLorePlaceholders(String text, @NotNull FoundShopItemModel shop) {
-        text = text.replace(ShopLorePlaceholdersEnum.ITEM_PRICE.value(), formatNumber(shop.getShopPrice()));
-
-        if (text.contains(ShopLorePlaceholdersEnum.SHOP_STOCK.value())) {
-            int stock = shop.getRemainingStockOrSpace();
-            String stockText;
-            if (stock == -2) {
-                // if -2 (cache doesn't have value) -> try to fetch from MAIN thread
-                int stockOrSpace = processUnknownStockSpace(shop);
-                stockText = (stockOrSpace == -2) ? SHOP_STOCK_UNKNOWN
-                        : (stockOrSpace == -1 ? SHOP_STOCK_UNLIMITED : String.valueOf(stockOrSpace));
-            } else {
-                stockText = (stock == Integer.MAX_VALUE) ? SHOP_STOCK_UNLIMITED : String.valueOf(stock);
-            }
-            text = text.replace(ShopLorePlaceholdersEnum.SHOP_STOCK.value(), stockText);
+    private @NotNull ItemStack createShopItem(@NotNull FoundShopItemModel foundShop,
+                                              @NotNull ShopLoreRenderer.RenderedShopText renderedText, boolean canTeleport) {
+        // Create a new ItemStack based on the shop's item, or the sold out material if the shop is out of stock/space
+        Material soldOutMaterial = foundShop.getRemainingStockOrSpace() == 0 ? getSoldOutMaterial() : null;
+        ItemStack shopItem = foundShop.getItem();
+        ItemStack item = new ItemStack(soldOutMaterial != null ? soldOutMaterial : shopItem.getType(), shopItem.getAmount());
+        ItemMeta shopItemMeta = shopItem.getItemMeta();
+        ItemMeta meta;
+        if (shopItemMeta == null) {
+            meta = Bukkit.getItemFactory().getItemMeta(item.getType());
+        } else if (configProvider.SHOP_GUI_USE_LIGHTWEIGHT_ICONS) {
+            meta = createLightweightMeta(item.getType(), shopItemMeta);
+        } else if (soldOutMaterial != null) {
+            // Keep the full meta, converted to what the sold out material supports
+            meta = Bukkit.getItemFactory().asMetaFor(shopItemMeta, soldOutMaterial);
+        } else {
+            meta = shopItemMeta;
         }
 
-        text = text.replace(ShopLorePlaceholdersEnum.SHOP_PER_ITEM_QTY.value(),
-                String.valueOf(shop.getItem().getAmount()));
-
-        if (text.contains(ShopLorePlaceholdersEnum.SHOP_OWNER.value())) {
-            OfflinePlayer shopOwner = Bukkit.getOfflinePlayer(shop.getShopOwner());
-            // set a generic name for shops with no owner name ('Admin')
-            String ownerName = shopOwner.getName() != null ? shopOwner.getName() : "Admin";
-            text = text.replace(ShopLorePlaceholdersEnum.SHOP_OWNER.value(), ownerName);
+        List<String> lore = new ArrayList<>(renderedText.lore());
+        // Add teleport info if applicable
+        if (canTeleport) {
+            lore.add(ColorTranslator.translateColorCodes(configProvider.CLICK_TO_TELEPORT_MSG));
         }
-
-        if (text.contains(ShopLorePlaceholdersEnum.SHOP_LOCATION.value())) {
-            Location loc = shop.getShopLocation();
-            String locText = loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ();
-            text = text.replace(ShopLorePlaceholdersEnum.SHOP_LOCATION.value(), locText);
+        meta.setLore(lore);
+        // Set the teleport target in the item's metadata
+        if (renderedText.shopLocation() != null) {
+            meta.getPersistentDataContainer().set(SHOP_LOCATION_KEY, ShopLocationDataType.INSTANCE, renderedText.shopLocation());
+        } else if (renderedText.warpName() != null) {
+            meta.getPersistentDataContainer().set(WARP_NAME_KEY, PersistentDataType.STRING, renderedText.warpName());
         }
 
-        text = text.replace(ShopLorePlaceholdersEnum.SHOP_WORLD.value(),
-                Objects.requireNonNull(shop.getShopLocation().getWorld()).getName());
-
-        // Added in v2.0
-        text = text.replace(ShopLorePlaceholdersEnum.SHOP_VISITS.value(),
-                String.valueOf(ShopSearchActivityStorageUtil.getPlayerVisitCount(shop.getShopLocation())));
+        // Preserve custom model data if it exists
+        if (shopItemMeta != null && shopItemMeta.hasCustomModelData()) {
+            meta.setCustomModelData(shopItemMeta.getCustomModelData());
+        }
 
-        return text;
+        item.setItemMeta(meta);
+        return item;
     }
 
-    private int processUnknownStockSpace(FoundShopItemModel shop) {
-        return FindItemAddOn.getQsApiInstance().processUnknownStockSpace(shop.getShopLocation(), shop.isToBuy());
+    @Nullable
+    private Material getSoldOutMaterial() {
+        if (StringUtils.isEmpty(configProvider.SHOP_GUI_SOLD_OUT_SHOP_MATERIAL)) {
+            return null;
+        }
+        Material soldOutMaterial = Material.getMaterial(configProvider.SHOP_GUI_SOLD_OUT_SHOP_MATERIAL);
+        return soldOutMaterial == null || soldOutMaterial.isAir() ? null : soldOutMaterial;
     }
 
-    private String replaceDelayPlaceholder(String tpDelayMsg, long delay) {
-        return tpDelayMsg.replace("{DELAY}", String.valueOf(delay));
+    /**
+     * Creates a fresh meta that only has what is visible on the icon (display name, enchantments and the
+     * looks of heads, dyed or trimmed armor, potions, fireworks and banners), leaving out heavy item data
+     * such as container contents, book pages and other plugins' data, which would otherwise be sent to
+     * the client with every GUI update.
+     * Custom model data and lore are set by {@link #createShopItem}.
+     */
+    private @NotNull ItemMeta createLightweightMeta(@NotNull Material type, @NotNull ItemMeta shopItemMeta) {
+        ItemMeta meta = Bukkit.getItemFactory().getItemMeta(type);
+        if (shopItemMeta.hasDisplayName()) {
+            meta.setDisplayName(shopItemMeta.getDisplayName());
+        }
+        shopItemMeta.getEnchants().forEach((enchantment, level) -> meta.addEnchant(enchantment, level, true));
+        if (shopItemMeta instanceof EnchantmentStorageMeta shopBookMeta
+                && meta instanceof EnchantmentStorageMeta bookMeta) {
+            shopBookMeta.getStoredEnchants().forEach((enchantment, level) -> bookMeta.addStoredEnchant(enchantment, level, true));
+        }
+        meta.addItemFlags(shopItemMeta.getItemFlags().toArray(new ItemFlag[0]));
+        copyVisualMeta(shopItemMeta, meta);
+        return meta;
     }
 
-    private String formatNumber(double number) {
-        if (configProvider.SHOP_GUI_USE_SHORTER_CURRENCY_FORMAT) {
-            if (number < 100_000) {
-                return String.format("%,.2f", number);
-            } else if (number < 1_000_000) {
-                return String.format("%.2fK", number / 1_000.0);
-            } else if (number < 1_000_000_000) {
-                return String.format("%.2fM", number / 1_000_000.0);
-            } else if (number < 1_000_000_000_000L) {
-                return String.format("%.2fB", number / 1_000_000_000.0);
-            } else {
-                return String.format("%.2fT", number / 1_000_000_000_000.0);
+    /**
+     * Copies the parts of the type specific metas that change how the item looks.
+     * Does nothing for the parts the target meta does not support (e.g. with the sold out material).
+     */
+    private void copyVisualMeta(@NotNull ItemMeta shopItemMeta, @NotNull ItemMeta meta) {
+        if (shopItemMeta instanceof SkullMeta shopSkullMeta && meta instanceof SkullMeta skullMeta
+                && shopSkullMeta.getOwnerProfile() != null) {
+            skullMeta.setOwnerProfile(shopSkullMeta.getOwnerProfile());
+        }
+        if (shopItemMeta instanceof LeatherArmorMeta shopLeatherMeta && meta instanceof LeatherArmorMeta leatherMeta) {
+            leatherMeta.setColor(shopLeatherMeta.getColor());
+        }
+        if (shopItemMeta instanceof ArmorMeta shopArmorMeta && meta instanceof ArmorMeta armorMeta && shopArmorMeta.hasTrim()) {
+            armorMeta.setTrim(shopArmorMeta.getTrim());
+        }
+        if (shopItemMeta instanceof PotionMeta shopPotionMeta && meta instanceof PotionMeta potionMeta) {
+            if (shopPotionMeta.hasBasePotionType()) {
+                potionMeta.setBasePotionType(shopPotionMeta.getBasePotionType());
             }
-        } else {
-            return String.format("%,.2f", number);
+            if (shopPotionMeta.hasColor()) {
+                potionMeta.setColor(shopPotionMeta.getColor());
+            }
+            shopPotionMeta.getCustomEffects().forEach(effect -> potionMeta.addCustomEffect(effect, true));
+        }
+        if (shopItemMeta instanceof FireworkMeta shopFireworkMeta && meta instanceof FireworkMeta fireworkMeta) {
+            fireworkMeta.addEffects(shopFireworkMeta.getEffects());
+            fireworkMeta.setPower(shopFireworkMeta.getPower());
+        }
+        if (shopItemMeta instanceof FireworkEffectMeta shopStarMeta && meta instanceof FireworkEffectMeta starMeta) {
+            starMeta.setEffect(shopStarMeta.getEffect());
         }
+        if (shopItemMeta instanceof BannerMeta shopBannerMeta && meta instanceof BannerMeta bannerMeta) {
+            bannerMeta.setPatterns(shopBannerMeta.getPatterns());
+        }
+    }
+
+    private String replaceDelayPlaceholder(String tpDelayMsg, long delay) {
+        return tpDelayMsg.replace("{DELAY}", String.valueOf(delay));
     }
 
     private String replaceCustomCmdPlaceholders(String cmd, Player player, Location shopLoc) {
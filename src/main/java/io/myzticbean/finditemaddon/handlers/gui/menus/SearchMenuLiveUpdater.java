@@ -0,0 +1,113 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.handlers.gui.menus;
+
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+/**
+ * Refreshes the shops shown in open search menus when their price or stock changes, or when the name
+ * of their owner was looked up after the icon was rendered.
+ * Changes are collected and applied once per tick, so a burst of purchases re-renders each icon once.
+ * <p>
+ * Only used from the MAIN thread.
+ * @author myzticbean
+ */
+@UtilityClass
+public class SearchMenuLiveUpdater {
+
+    /** Menus are dropped once they are closed and garbage collected */
+    private static final Set<FoundShopsMenu> openMenus = Collections.newSetFromMap(new WeakHashMap<>());
+    private static final Set<ShopLocationKey> changedShops = new HashSet<>();
+    private static final Set<UUID> resolvedOwners = new HashSet<>();
+    private static boolean isUpdateScheduled = false;
+
+    static void register(FoundShopsMenu menu) {
+        openMenus.add(menu);
+    }
+
+    /**
+     * Marks the shop as changed. Open menus showing it are updated on the next tick.
+     */
+    public static void shopChanged(Location shopLocation) {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), () -> shopChanged(shopLocation));
+            return;
+        }
+        if (openMenus.isEmpty()) {
+            return;
+        }
+        changedShops.add(ShopLocationKey.of(shopLocation));
+        if (!isUpdateScheduled) {
+            isUpdateScheduled = true;
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), SearchMenuLiveUpdater::updateOpenMenus);
+        }
+    }
+
+    /**
+     * Re-renders the icons of the owner's shops in open menus, which were showing the owner name placeholder.
+     * Called once the owner name is cached.
+     */
+    public static void ownerNameResolved(UUID ownerUUID) {
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), () -> ownerNameResolved(ownerUUID));
+            return;
+        }
+        if (openMenus.isEmpty()) {
+            return;
+        }
+        resolvedOwners.add(ownerUUID);
+        if (!isUpdateScheduled) {
+            isUpdateScheduled = true;
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), SearchMenuLiveUpdater::updateOpenMenus);
+        }
+    }
+
+    private static void updateOpenMenus() {
+        isUpdateScheduled = false;
+        Set<ShopLocationKey> shopsToUpdate = Set.copyOf(changedShops);
+        changedShops.clear();
+        Set<UUID> ownersToUpdate = Set.copyOf(resolvedOwners);
+        resolvedOwners.clear();
+        List<FoundShopsMenu> menus = new ArrayList<>(openMenus);
+        for (FoundShopsMenu menu : menus) {
+            if (!menu.isOpen()) {
+                openMenus.remove(menu);
+                continue;
+            }
+            if (!shopsToUpdate.isEmpty()) {
+                menu.refreshChangedShops(shopsToUpdate);
+            }
+            for (UUID ownerUUID : ownersToUpdate) {
+                menu.refreshShopsOfOwner(ownerUUID);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.handlers.gui.menus;
+
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.persistence.PersistentDataAdapterContext;
+import org.bukkit.persistence.PersistentDataType;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Stores a shop block location in a shop icon as 24 bytes: the world UUID and the block position
+ * packed with {@link ShopLocationKey#packBlockPosition(int, int, int)}.
+ * Using the world UUID means the icon still points to the right world if the world is renamed.
+ * <p>
+ * The location read back has a null world if the world is not loaded.
+ * @author myzticbean
+ */
+final class ShopLocationDataType implements PersistentDataType<byte[], Location> {
+
+    static final ShopLocationDataType INSTANCE = new ShopLocationDataType();
+
+    private static final int SIZE_IN_BYTES = 2 * Long.BYTES + Long.BYTES;
+
+    private ShopLocationDataType() {}
+
+    @Override
+    public @NotNull Class<byte[]> getPrimitiveType() {
+        return byte[].class;
+    }
+
+    @Override
+    public @NotNull Class<Location> getComplexType() {
+        return Location.class;
+    }
+
+    @Override
+    public byte @NotNull [] toPrimitive(@NotNull Location location, @NotNull PersistentDataAdapterContext context) {
+        UUID worldUUID = location.getWorld().getUID();
+        return ByteBuffer.allocate(SIZE_IN_BYTES)
+                .putLong(worldUUID.getMostSignificantBits())
+                .putLong(worldUUID.getLeastSignificantBits())
+                .putLong(ShopLocationKey.packBlockPosition(location.getBlockX(), location.getBlockY(), location.getBlockZ()))
+                .array();
+    }
+
+    @Override
+    public @NotNull Location fromPrimitive(byte @NotNull [] bytes, @NotNull PersistentDataAdapterContext context) {
+        if (bytes.length != SIZE_IN_BYTES) {
+            throw new IllegalArgumentException("Invalid shop location data length: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        UUID worldUUID = new UUID(buffer.getLong(), buffer.getLong());
+        long blockPosition = buffer.getLong();
+        return new Location(Bukkit.getWorld(worldUUID),
+                ShopLocationKey.unpackBlockX(blockPosition),
+                ShopLocationKey.unpackBlockY(blockPosition),
+                ShopLocationKey.unpackBlockZ(blockPosition));
+    }
+}
@@ -0,0 +1,284 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.handlers.gui.menus;
+
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.config.ConfigProvider;
+import io.myzticbean.finditemaddon.dependencies.EssentialsXPlugin;
+import io.myzticbean.finditemaddon.dependencies.PlayerWarpsPlugin;
+import io.myzticbean.finditemaddon.dependencies.ResidencePlugin;
+import io.myzticbean.finditemaddon.dependencies.WGPlugin;
+import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import io.myzticbean.finditemaddon.models.enums.ShopLorePlaceholdersEnum;
+import io.myzticbean.finditemaddon.utils.ShopOwnerNameCache;
+import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+import io.myzticbean.finditemaddon.utils.warp.NearestWarpCache;
+import io.myzticbean.finditemaddon.utils.warp.RegionNameCache;
+import me.kodysimpson.simpapi.colors.ColorTranslator;
+import org.apache.commons.lang3.StringUtils;
+import org.bukkit.Location;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders the text shown on a shop icon in the search result GUI (lore and the location data
+ * stored in the icon). Only uses thread-safe inputs, so it can run on the search thread and leave
+ * just the ItemStack building to the main thread.
+ * @author myzticbean
+ */
+public class ShopLoreRenderer {
+
+    private static volatile ShopLoreTemplate compiledLoreTemplate;
+
+    private final ConfigProvider configProvider;
+
+    /**
+     * Lore lines (colors translated) and teleport target for one shop icon
+     * @param shopLocation Set when players are teleported directly to the shop
+     * @param warpName Set when players are teleported to the nearest warp
+     * @param isOwnerNamePending If {@code {SHOP_OWNER}} was rendered before the owner name was looked up,
+     *                           so the icon must not be kept and is rendered again once the name is found
+     */
+    public record RenderedShopText(List<String> lore, @Nullable Location shopLocation, @Nullable String warpName,
+                                   boolean isOwnerNamePending) {}
+
+    public ShopLoreRenderer() {
+        configProvider = FindItemAddOn.getConfigProvider();
+    }
+
+    /**
+     * Compiles {@code shop-gui-item-lore} of the current config. Called on every config (re)load.
+     */
+    public static void compileLoreTemplate() {
+        compiledLoreTemplate = ShopLoreTemplate.compile(FindItemAddOn.getConfigProvider().SHOP_GUI_ITEM_LORE);
+    }
+
+    private ShopLoreTemplate getLoreTemplate() {
+        ShopLoreTemplate loreTemplate = compiledLoreTemplate;
+        if (loreTemplate == null || !loreTemplate.isCompiledFrom(configProvider.SHOP_GUI_ITEM_LORE)) {
+            loreTemplate = ShopLoreTemplate.compile(configProvider.SHOP_GUI_ITEM_LORE);
+            compiledLoreTemplate = loreTemplate;
+        }
+        return loreTemplate;
+    }
+
+    /**
+     * Renders the first {@code count} shops of a search result off the main thread.
+     * Shops whose stock can only be fetched on the main thread are left as null.
+     */
+    public List<RenderedShopText> renderAsync(List<FoundShopItemModel> foundShops, int count) {
+        int renderCount = Math.min(count, foundShops.size());
+        List<RenderedShopText> renderedTexts = new ArrayList<>(renderCount);
+        for (int i = 0; i < renderCount; i++) {
+            FoundShopItemModel foundShop = foundShops.get(i);
+            renderedTexts.add(foundShop == null ? null : render(foundShop, false));
+        }
+        return renderedTexts;
+    }
+
+    /**
+     * @param onMainThread If false, returns null when the shop stock needs a main thread lookup
+     */
+    @Nullable
+    public RenderedShopText render(@NotNull FoundShopItemModel foundShop, boolean onMainThread) {
+        if (!onMainThread && needsMainThreadStockLookup(foundShop)) {
+            return null;
+        }
+        ShopLoreTemplate loreTemplate = getLoreTemplate();
+        String nearestWarpInfo = null;
+        boolean isOwnerNamePending = false;
+        List<String> lore = new ArrayList<>();
+        ItemStack shopItem = foundShop.getItem();
+        // Add existing item lore
+        ItemMeta shopItemMeta = shopItem.getItemMeta();
+        if (shopItemMeta != null && shopItemMeta.hasLore()) {
+            List<String> itemLore = shopItemMeta.getLore();
+            int maxItemLoreLines = configProvider.SHOP_GUI_USE_LIGHTWEIGHT_ICONS
+                    && configProvider.SHOP_GUI_LIGHTWEIGHT_ICONS_ITEM_LORE_LINES >= 0
+                    ? Math.min(configProvider.SHOP_GUI_LIGHTWEIGHT_ICONS_ITEM_LORE_LINES, itemLore.size())
+                    : itemLore.size();
+            for (int i = 0; i < maxItemLoreLines; i++) {
+                lore.add(ColorTranslator.translateColorCodes(itemLore.get(i)));
+            }
+        }
+        // Add shop info lore
+        for (List<ShopLoreTemplate.Token> line : loreTemplate.lines()) {
+            StringBuilder renderedLine = new StringBuilder();
+            for (ShopLoreTemplate.Token token : line) {
+                if (token.literal() != null) {
+                    renderedLine.append(token.literal());
+                } else if (token.placeholder() == ShopLorePlaceholdersEnum.NEAREST_WARP) {
+                    if (nearestWarpInfo == null) {
+                        nearestWarpInfo = getNearestWarpInfo(foundShop);
+                    }
+                    renderedLine.append(ColorTranslator.translateColorCodes(nearestWarpInfo));
+                } else if (token.placeholder() == ShopLorePlaceholdersEnum.SHOP_OWNER) {
+                    String ownerName = ShopOwnerNameCache.getOwnerName(foundShop.getShopOwner());
+                    isOwnerNamePending |= ownerName == null;
+                    renderedLine.append(formatOwnerName(ownerName));
+                } else {
+                    renderedLine.append(renderPlaceholder(token, foundShop, shopItem));
+                }
+            }
+            lore.add(renderedLine.toString());
+        }
+
+        Location shopLocation = null;
+        String warpName = null;
+        if (configProvider.TP_PLAYER_DIRECTLY_TO_SHOP) {
+            // Store exact coordinates for direct teleportation
+            shopLocation = foundShop.getShopLocation();
+        } else if (configProvider.TP_PLAYER_TO_NEAREST_WARP) {
+            // Store nearest warp info for warp teleportation
+            warpName = nearestWarpInfo != null ? nearestWarpInfo : getNearestWarpInfo(foundShop);
+        }
+        return new RenderedShopText(lore, shopLocation, warpName, isOwnerNamePending);
+    }
+
+    private boolean needsMainThreadStockLookup(FoundShopItemModel foundShop) {
+        return foundShop.getRemainingStockOrSpace() == -2
+                && getLoreTemplate().uses(ShopLorePlaceholdersEnum.SHOP_STOCK);
+    }
+
+    /**
+     * Finds the nearest warp or region to a shop based on the configuration
+     *
+     * @param foundShop The shop to find the nearest warp/region for
+     * @return A string representing the nearest warp/region, or an error message if
+     *         none found
+     */
+    private String getNearestWarpInfo(FoundShopItemModel foundShop) {
+        int nearestWarpMode = configProvider.NEAREST_WARP_MODE;
+        switch (nearestWarpMode) {
+            case 1:
+                // EssentialsX warps
+                if (EssentialsXPlugin.isEnabled()) {
+                    String nearestEWarp = NearestWarpCache.getNearestEssentialsWarp(foundShop);
+                    return (nearestEWarp != null && !StringUtils.isEmpty(nearestEWarp)) ? nearestEWarp
+                            : configProvider.NO_WARP_NEAR_SHOP_ERROR_MSG;
+                }
+                break;
+            case 2:
+                // PlayerWarps
+                if (PlayerWarpsPlugin.getIsEnabled()) {
+                    String nearestPlayerWarp = NearestWarpCache.getNearestPlayerWarp(foundShop);
+                    return (nearestPlayerWarp != null) ? nearestPlayerWarp
+                            : configProvider.NO_WARP_NEAR_SHOP_ERROR_MSG;
+                }
+                break;
+            case 3:
+                // WorldGuard regions
+                if (WGPlugin.isEnabled()) {
+                    String nearestWGRegion = RegionNameCache.getWGRegion(foundShop);
+                    return (nearestWGRegion != null && !StringUtils.isEmpty(nearestWGRegion)) ? nearestWGRegion
+                            : configProvider.NO_WG_REGION_NEAR_SHOP_ERROR_MSG;
+                }
+                break;
+            case 4:
+                // Residence plugin
+                if (ResidencePlugin.isEnabled()) {
+                    String nearestResidence = RegionNameCache.getResidence(foundShop);
+                    return (nearestResidence != null) ? nearestResidence
+                            : configProvider.NO_RESIDENCE_NEAR_SHOP_ERROR_MSG;
+                }
+                break;
+            default:
+                Logger.logDebugInfo("Invalid value in 'nearest-warp-mode' in config.yml!");
+        }
+        return configProvider.NO_WARP_NEAR_SHOP_ERROR_MSG;
+    }
+
+    /**
+     * Value of a placeholder (other than the nearest warp) for a shop
+     *
+     * @param token Placeholder token of the compiled lore
+     * @param shop  Shop instance
+     * @param shopItem Item of the shop
+     * @return Text to put in place of the placeholder
+     */
+    private @NotNull String renderPlaceholder(ShopLoreTemplate.Token token, @NotNull FoundShopItemModel shop,
+                                              @NotNull ItemStack shopItem) {
+        return switch (token.placeholder()) {
+            case ITEM_PRICE -> formatNumber(shop.getShopPrice());
+            case SHOP_STOCK -> {
+                int stock = shop.getRemainingStockOrSpace();
+                if (stock == -2) {
+                    // if -2 (cache doesn't have value) -> try to fetch from MAIN thread
+                    int stockOrSpace = processUnknownStockSpace(shop);
+                    yield (stockOrSpace == -2) ? FoundShopsMenu.SHOP_STOCK_UNKNOWN
+                            : (stockOrSpace == -1 ? FoundShopsMenu.SHOP_STOCK_UNLIMITED : String.valueOf(stockOrSpace));
+                }
+                yield (stock == Integer.MAX_VALUE) ? FoundShopsMenu.SHOP_STOCK_UNLIMITED : String.valueOf(stock);
+            }
+            case SHOP_PER_ITEM_QTY -> String.valueOf(shopItem.getAmount());
+            case SHOP_OWNER -> formatOwnerName(ShopOwnerNameCache.getOwnerName(shop.getShopOwner()));
+            case SHOP_LOCATION -> {
+                ShopLocationKey loc = shop.getShopLocationKey();
+                yield loc.blockX() + ", " + loc.blockY() + ", " + loc.blockZ();
+            }
+            case SHOP_WORLD -> shop.getShopLocationKey().worldName();
+            // Added in v2.0
+            case SHOP_VISITS -> String.valueOf(ShopSearchActivityStorageUtil.getPlayerVisitCount(shop.getShopLocation()));
+            case SHOP_VISITS_LAST_N_DAYS -> String.valueOf(
+                    ShopSearchActivityStorageUtil.getPlayerVisitCount(shop.getShopLocation(), Duration.ofDays(token.days())));
+            case NEAREST_WARP -> getNearestWarpInfo(shop);
+        };
+    }
+
+    /**
+     * @param ownerName Cached owner name, null if it is still being looked up in background
+     */
+    private String formatOwnerName(@Nullable String ownerName) {
+        if (ownerName == null) {
+            return ColorTranslator.translateColorCodes(configProvider.SHOP_GUI_SHOP_OWNER_UNKNOWN_TEXT);
+        }
+        // set a generic name for shops with no owner name ('Admin')
+        return !ownerName.isEmpty() ? ownerName : "Admin";
+    }
+
+    private int processUnknownStockSpace(FoundShopItemModel shop) {
+        return FindItemAddOn.getQsApiInstance().processUnknownStockSpace(shop.getShopLocation(), shop.isToBuy());
+    }
+
+    private String formatNumber(double number) {
+        if (configProvider.SHOP_GUI_USE_SHORTER_CURRENCY_FORMAT) {
+            if (number < 100_000) {
+                return String.format("%,.2f", number);
+            } else if (number < 1_000_000) {
+                return String.format("%.2fK", number / 1_000.0);
+            } else if (number < 1_000_000_000) {
+                return String.format("%.2fM", number / 1_000_000.0);
+            } else if (number < 1_000_000_000_000L) {
+                return String.format("%.2fB", number / 1_000_000_000.0);
+            } else {
+                return String.format("%.2fT", number / 1_000_000_000_000.0);
+            }
+        } else {
+            return String.format("%,.2f", number);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.handlers.gui.menus;
+
+import io.myzticbean.finditemaddon.models.enums.ShopLorePlaceholdersEnum;
+import me.kodysimpson.simpapi.colors.ColorTranslator;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@code shop-gui-item-lore} compiled into literal segments (colors already translated)
+ * and placeholder slots, so rendering a line is a single pass over its tokens.
+ * @author myzticbean
+ */
+final class ShopLoreTemplate {
+
+    private static final Pattern SHOP_VISITS_LAST_N_DAYS_PATTERN = Pattern.compile("\\{SHOP_VISITS_(\\d{1,5})D}");
+
+    /**
+     * Either a literal or a placeholder. {@code days} is only set for {@link ShopLorePlaceholdersEnum#SHOP_VISITS_LAST_N_DAYS}.
+     */
+    record Token(@Nullable String literal, @Nullable ShopLorePlaceholdersEnum placeholder, int days) {}
+
+    private final List<String> source;
+    private final List<List<Token>> lines;
+    private final Set<ShopLorePlaceholdersEnum> usedPlaceholders;
+
+    private ShopLoreTemplate(List<String> source, List<List<Token>> lines, Set<ShopLorePlaceholdersEnum> usedPlaceholders) {
+        this.source = source;
+        this.lines = lines;
+        this.usedPlaceholders = usedPlaceholders;
+    }
+
+    static ShopLoreTemplate compile(@Nullable List<String> loreLines) {
+        List<String> source = loreLines == null ? List.of() : loreLines;
+        List<List<Token>> lines = new ArrayList<>(source.size());
+        Set<ShopLorePlaceholdersEnum> usedPlaceholders = EnumSet.noneOf(ShopLorePlaceholdersEnum.class);
+        for (String loreLine : source) {
+            lines.add(compileLine(loreLine, usedPlaceholders));
+        }
+        return new ShopLoreTemplate(source, List.copyOf(lines), usedPlaceholders);
+    }
+
+    private static List<Token> compileLine(String loreLine, Set<ShopLorePlaceholdersEnum> usedPlaceholders) {
+        List<Token> tokens = new ArrayList<>();
+        Matcher visitsMatcher = SHOP_VISITS_LAST_N_DAYS_PATTERN.matcher(loreLine);
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < loreLine.length()) {
+            if (loreLine.charAt(i) == '{') {
+                Token placeholderToken = null;
+                int placeholderLength = 0;
+                for (ShopLorePlaceholdersEnum placeholder : ShopLorePlaceholdersEnum.values()) {
+                    if (placeholder != ShopLorePlaceholdersEnum.SHOP_VISITS_LAST_N_DAYS
+                            && loreLine.startsWith(placeholder.value(), i)) {
+                        placeholderToken = new Token(null, placeholder, 0);
+                        placeholderLength = placeholder.value().length();
+                        break;
+                    }
+                }
+                if (placeholderToken == null && visitsMatcher.region(i, loreLine.length()).lookingAt()) {
+                    placeholderToken = new Token(null, ShopLorePlaceholdersEnum.SHOP_VISITS_LAST_N_DAYS,
+                            Integer.parseInt(visitsMatcher.group(1)));
+                    placeholderLength = visitsMatcher.end() - i;
+                }
+                if (placeholderToken != null) {
+                    addLiteral(tokens, literal);
+                    tokens.add(placeholderToken);
+                    usedPlaceholders.add(placeholderToken.placeholder());
+                    i += placeholderLength;
+                    continue;
+                }
+            }
+            literal.append(loreLine.charAt(i));
+            i++;
+        }
+        addLiteral(tokens, literal);
+        return List.copyOf(tokens);
+    }
+
+    private static void addLiteral(List<Token> tokens, StringBuilder literal) {
+        if (!literal.isEmpty()) {
+            tokens.add(new Token(ColorTranslator.translateColorCodes(literal.toString()), null, 0));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * @return true if this template was compiled from the given lore lines
+     */
+    boolean isCompiledFrom(@Nullable List<String> loreLines) {
+        return source == loreLines || (loreLines == null && source.isEmpty());
+    }
+
+    boolean uses(ShopLorePlaceholdersEnum placeholder) {
+        return usedPlaceholders.contains(placeholder);
+    }
+
+    List<List<Token>> lines() {
+        return lines;
+    }
+}
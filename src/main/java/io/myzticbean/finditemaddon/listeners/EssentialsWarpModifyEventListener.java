@@ -0,0 +1,46 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.listeners;
+
+import io.myzticbean.finditemaddon.dependencies.EssentialsXPlugin;
+import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
+import net.essentialsx.api.v2.events.WarpModifyEvent;
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Applies warps set or removed with Essentials commands to the warp index right away
+ * @author myzticbean
+ */
+public class EssentialsWarpModifyEventListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWarpModify(WarpModifyEvent event) {
+        String warpName = event.getWarpName();
+        if(event.getCause() == WarpModifyEvent.WarpModifyCause.DELETE) {
+            VirtualThreadScheduler.runTaskAsync(() -> EssentialsXPlugin.removeWarp(warpName));
+        }
+        else if(event.getNewLocation() != null) {
+            Location newLocation = event.getNewLocation().clone();
+            VirtualThreadScheduler.runTaskAsync(() -> EssentialsXPlugin.putWarp(warpName, newLocation));
+        }
+    }
+}
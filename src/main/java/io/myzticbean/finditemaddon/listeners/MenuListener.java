@@ -18,10 +18,12 @@
  */
 package io.myzticbean.finditemaddon.listeners;
 
+import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.handlers.gui.Menu;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.InventoryHolder;
 
 /**
@@ -40,4 +42,11 @@ public class MenuListener implements Listener {
             menu.handleMenu(e);
         }
     }
+
+    @EventHandler
+    public void onMenuClose(InventoryCloseEvent e) {
+        if(e.getInventory().getHolder() instanceof Menu) {
+            FindItemAddOn.scheduleMenuUtilityEviction(e.getPlayer().getUniqueId());
+        }
+    }
 }
@@ -19,6 +19,7 @@
 package io.myzticbean.finditemaddon.listeners;
 
 import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.utils.ShopOwnerNameCache;
 import io.myzticbean.finditemaddon.utils.UpdateChecker;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -32,5 +33,7 @@ public class PlayerJoinEventListener implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         new UpdateChecker().notifyPlayerAboutUpdateOnJoin(event);
+        // keeps shop owner names up to date, also after a name change
+        ShopOwnerNameCache.putOwnerName(event.getPlayer().getUniqueId(), event.getPlayer().getName());
     }
 }
@@ -0,0 +1,80 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.listeners;
+
+import com.bekvon.bukkit.residence.event.ResidenceAreaAddEvent;
+import com.bekvon.bukkit.residence.event.ResidenceAreaDeleteEvent;
+import com.bekvon.bukkit.residence.event.ResidenceCreationEvent;
+import com.bekvon.bukkit.residence.event.ResidenceDeleteEvent;
+import com.bekvon.bukkit.residence.event.ResidenceRenameEvent;
+import com.bekvon.bukkit.residence.event.ResidenceSizeChangeEvent;
+import com.bekvon.bukkit.residence.event.ResidenceSubzoneCreationEvent;
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.utils.warp.RegionNameCache;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Drops cached residences when residences are created, removed, resized or renamed
+ * @author myzticbean
+ */
+public class ResidenceChangeEventListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onResidenceCreate(ResidenceCreationEvent event) {
+        invalidateResidences();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSubzoneCreate(ResidenceSubzoneCreationEvent event) {
+        invalidateResidences();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onResidenceDelete(ResidenceDeleteEvent event) {
+        invalidateResidences();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onResidenceResize(ResidenceSizeChangeEvent event) {
+        invalidateResidences();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onResidenceAreaAdd(ResidenceAreaAddEvent event) {
+        invalidateResidences();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onResidenceAreaDelete(ResidenceAreaDeleteEvent event) {
+        invalidateResidences();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onResidenceRename(ResidenceRenameEvent event) {
+        invalidateResidences();
+    }
+
+    private void invalidateResidences() {
+        // the events fire before the change is applied
+        Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), RegionNameCache::invalidateResidences);
+    }
+}
@@ -19,8 +19,13 @@
 package io.myzticbean.finditemaddon.listeners;
 
 import com.ghostchu.quickshop.api.event.management.ShopCreateEvent;
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.quickshop.index.ShopSearchIndex;
+import io.myzticbean.finditemaddon.utils.ShopTeleportSpotCache;
 import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
 import io.myzticbean.finditemaddon.utils.log.Logger;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
@@ -28,9 +33,21 @@ import org.bukkit.event.Listener;
  * @author myzticbean
  */
 public class ShopCreateEventListener implements Listener {
+
+    private static final long SHOP_SIGN_PLACEMENT_DELAY_TICKS = 20;
+
     @EventHandler
     public void onShopCreate(ShopCreateEvent event) {
         Logger.logDebugInfo("New shop added!");
-        event.shop().ifPresent(ShopSearchActivityStorageUtil::addShop);
+        event.shop().ifPresent(shop -> {
+            ShopSearchActivityStorageUtil.addShop(shop);
+            ShopSearchIndex.indexShop(shop);
+            if(FindItemAddOn.getConfigProvider().TP_PLAYER_DIRECTLY_TO_SHOP) {
+                // the shop sign is placed after this event, so find the teleport spot a moment later
+                Location shopLocation = shop.getLocation().clone();
+                Bukkit.getScheduler().runTaskLater(FindItemAddOn.getInstance(),
+                        () -> ShopTeleportSpotCache.precompute(shopLocation), SHOP_SIGN_PLACEMENT_DELAY_TICKS);
+            }
+        });
     }
 }
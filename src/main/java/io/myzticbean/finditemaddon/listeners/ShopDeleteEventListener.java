@@ -1,8 +1,12 @@
 package io.myzticbean.finditemaddon.listeners;
 
 import com.ghostchu.quickshop.api.event.management.ShopDeleteEvent;
+import io.myzticbean.finditemaddon.quickshop.index.ShopSearchIndex;
+import io.myzticbean.finditemaddon.utils.ShopTeleportSpotCache;
 import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
 import io.myzticbean.finditemaddon.utils.log.Logger;
+import io.myzticbean.finditemaddon.utils.warp.NearestWarpCache;
+import io.myzticbean.finditemaddon.utils.warp.RegionNameCache;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
@@ -13,6 +17,12 @@ public class ShopDeleteEventListener implements Listener {
     @EventHandler
     public void onShopDelete(ShopDeleteEvent event) {
         Logger.logDebugInfo("Shop deleted!");
-        event.shop().ifPresent(ShopSearchActivityStorageUtil::removeShop);
+        event.shop().ifPresent(shop -> {
+            ShopSearchActivityStorageUtil.removeShop(shop);
+            ShopSearchIndex.removeShop(shop);
+            ShopTeleportSpotCache.invalidateShop(shop.getLocation());
+            NearestWarpCache.invalidateShop(shop.getLocation());
+            RegionNameCache.invalidateShop(shop.getLocation());
+        });
     }
 }
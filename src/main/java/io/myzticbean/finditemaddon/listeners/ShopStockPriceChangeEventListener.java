@@ -0,0 +1,46 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.listeners;
+
+import com.ghostchu.quickshop.api.event.Phase;
+import com.ghostchu.quickshop.api.event.economy.ShopSuccessPurchaseEvent;
+import com.ghostchu.quickshop.api.event.settings.type.ShopPriceEvent;
+import io.myzticbean.finditemaddon.handlers.gui.menus.SearchMenuLiveUpdater;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Updates open search menus after a shop's price or stock changed
+ * @author myzticbean
+ */
+public class ShopStockPriceChangeEventListener implements Listener {
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onShopPriceChange(ShopPriceEvent event) {
+        if(event.isPhase(Phase.POST)) {
+            SearchMenuLiveUpdater.shopChanged(event.shop().getLocation());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onShopPurchase(ShopSuccessPurchaseEvent event) {
+        SearchMenuLiveUpdater.shopChanged(event.getShop().getLocation());
+    }
+}
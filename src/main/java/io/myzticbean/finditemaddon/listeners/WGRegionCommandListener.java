@@ -0,0 +1,62 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.listeners;
+
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.utils.warp.RegionNameCache;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * WorldGuard has no events for region changes, so cached regions are dropped after any
+ * WorldGuard region command (define, redefine, remove, reload, ...)
+ * @author myzticbean
+ */
+public class WGRegionCommandListener implements Listener {
+
+    private static final Set<String> REGION_COMMANDS = Set.of("rg", "region", "regions", "wg", "worldguard");
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        handleCommand(event.getMessage().startsWith("/") ? event.getMessage().substring(1) : event.getMessage());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        handleCommand(event.getCommand().startsWith("/") ? event.getCommand().substring(1) : event.getCommand());
+    }
+
+    private void handleCommand(String commandLine) {
+        String label = commandLine.split(" ", 2)[0].toLowerCase(Locale.ROOT);
+        if(label.startsWith("worldguard:")) {
+            label = label.substring("worldguard:".length());
+        }
+        if(REGION_COMMANDS.contains(label)) {
+            // the command runs after this event, so drop the cache once it has been applied
+            Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), RegionNameCache::invalidateWGRegions);
+        }
+    }
+}
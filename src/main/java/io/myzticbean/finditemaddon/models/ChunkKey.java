@@ -0,0 +1,35 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.models;
+
+/**
+ * Identifies a chunk by world and chunk coordinates
+ * @param worldId World id from {@link io.myzticbean.finditemaddon.utils.WorldNameDictionary}
+ * @author myzticbean
+ */
+public record ChunkKey(int worldId, int chunkX, int chunkZ) {
+
+    public static ChunkKey of(ShopLocationKey shopLocationKey) {
+        return ofBlock(shopLocationKey.worldId(), shopLocationKey.blockX(), shopLocationKey.blockZ());
+    }
+
+    public static ChunkKey ofBlock(int worldId, int blockX, int blockZ) {
+        return new ChunkKey(worldId, blockX >> 4, blockZ >> 4);
+    }
+}
@@ -18,24 +18,54 @@
  */
 package io.myzticbean.finditemaddon.models;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.bukkit.Location;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Model for the Shop Item lore that will be shown in the search GUI
+ * <p>
+ * Kept compact as a search can return every shop of the server: the location is the shop plugin's
+ * own instance and the item is only copied from the shop when an icon is built for it.
  * @author myzticbean
  */
 @Getter
-@AllArgsConstructor
 public class FoundShopItemModel {
     private final double shopPrice;
     private final int remainingStockOrSpace;
     private final UUID shopOwner;
+    /**
+     * Location of the shop as held by the shop plugin. Must not be modified.
+     */
     private final Location shopLocation;
-    private final ItemStack item;
+    private final ShopLocationKey shopLocationKey;
+    @Getter(AccessLevel.NONE)
+    private final Supplier<ItemStack> shopItem;
     private final boolean toBuy;
+
+    /**
+     * @param shopItem Returns the current item of the shop, e.g. {@code shop::getItem}
+     */
+    public FoundShopItemModel(double shopPrice, int remainingStockOrSpace, UUID shopOwner,
+                              Location shopLocation, Supplier<ItemStack> shopItem, boolean toBuy) {
+        this.shopPrice = shopPrice;
+        this.remainingStockOrSpace = remainingStockOrSpace;
+        this.shopOwner = shopOwner;
+        this.shopLocation = shopLocation;
+        this.shopLocationKey = ShopLocationKey.of(shopLocation);
+        this.shopItem = shopItem;
+        this.toBuy = toBuy;
+    }
+
+    /**
+     * Copies the current item from the shop, so only call it for shops that are shown
+     * @return The item sold or bought by the shop
+     */
+    public ItemStack getItem() {
+        return shopItem.get();
+    }
 }
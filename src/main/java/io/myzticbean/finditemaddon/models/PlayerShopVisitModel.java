@@ -18,35 +18,50 @@
  */
 package io.myzticbean.finditemaddon.models;
 
-import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 import java.util.UUID;
 
 /**
+ * Stores the player UUID as two longs and the visit time as epoch millis
  * @author myzticbean
  */
-@AllArgsConstructor
 @NoArgsConstructor
 public class PlayerShopVisitModel {
 
-    private String playerUUID;
-    private String visitDateTime;
+    private long playerUUIDMostSigBits;
+    private long playerUUIDLeastSigBits;
+    private long visitEpochMilli;
+
+    public PlayerShopVisitModel(UUID playerUUID, Instant visitDateTime) {
+        setPlayerUUID(playerUUID);
+        this.visitEpochMilli = visitDateTime.toEpochMilli();
+    }
 
     public void setPlayerUUID(UUID uuid) {
-        this.playerUUID = uuid.toString();
+        this.playerUUIDMostSigBits = uuid.getMostSignificantBits();
+        this.playerUUIDLeastSigBits = uuid.getLeastSignificantBits();
     }
 
     public UUID getPlayerUUID() {
-        return UUID.fromString(this.playerUUID);
+        return new UUID(playerUUIDMostSigBits, playerUUIDLeastSigBits);
+    }
+
+    public boolean isVisitedBy(UUID uuid) {
+        return playerUUIDMostSigBits == uuid.getMostSignificantBits()
+                && playerUUIDLeastSigBits == uuid.getLeastSignificantBits();
     }
 
     public void setVisitDateTime() {
-        this.visitDateTime = Instant.now().toString();
+        this.visitEpochMilli = System.currentTimeMillis();
     }
 
     public Instant getVisitDateTime() {
-        return Instant.parse(visitDateTime);
+        return Instant.ofEpochMilli(visitEpochMilli);
+    }
+
+    public long getVisitEpochMilli() {
+        return visitEpochMilli;
     }
 }
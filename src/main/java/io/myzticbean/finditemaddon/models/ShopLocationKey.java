@@ -0,0 +1,90 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.models;
+
+import io.myzticbean.finditemaddon.utils.WorldNameDictionary;
+import org.bukkit.Location;
+
+/**
+ * Identifies a shop by world and block position
+ * @param worldId World id from {@link WorldNameDictionary}
+ * @param blockPosition Block position packed with {@link #packBlockPosition(int, int, int)}
+ * @author myzticbean
+ */
+public record ShopLocationKey(int worldId, long blockPosition) {
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    public static ShopLocationKey of(Location location) {
+        return of(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public static ShopLocationKey of(String worldName, double x, double y, double z) {
+        return of(worldName, (int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
+    }
+
+    public static ShopLocationKey of(String worldName, int blockX, int blockY, int blockZ) {
+        return new ShopLocationKey(WorldNameDictionary.idOf(worldName), packBlockPosition(blockX, blockY, blockZ));
+    }
+
+    /**
+     * Packs a block position into a long: 26 bits for x and z, 12 bits for y (same layout as Minecraft's BlockPos)
+     */
+    public static long packBlockPosition(int blockX, int blockY, int blockZ) {
+        return ((blockX & XZ_MASK) << (XZ_BITS + Y_BITS))
+                | ((blockZ & XZ_MASK) << Y_BITS)
+                | (blockY & Y_MASK);
+    }
+
+    public int blockX() {
+        return unpackBlockX(blockPosition);
+    }
+
+    public int blockY() {
+        return unpackBlockY(blockPosition);
+    }
+
+    public int blockZ() {
+        return unpackBlockZ(blockPosition);
+    }
+
+    public static int unpackBlockX(long blockPosition) {
+        return (int) (blockPosition >> (XZ_BITS + Y_BITS));
+    }
+
+    public static int unpackBlockY(long blockPosition) {
+        return (int) (blockPosition << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int unpackBlockZ(long blockPosition) {
+        return (int) (blockPosition << (64 - XZ_BITS - Y_BITS) >> (64 - XZ_BITS));
+    }
+
+    public String worldName() {
+        return WorldNameDictionary.nameOf(worldId);
+    }
+
+    @Override
+    public String toString() {
+        return worldName() + " " + blockX() + ", " + blockY() + ", " + blockZ();
+    }
+}
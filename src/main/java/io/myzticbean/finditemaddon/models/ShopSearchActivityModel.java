@@ -18,48 +18,152 @@
  */
 package io.myzticbean.finditemaddon.models;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.Setter;
-import lombok.ToString;
+import org.bukkit.Location;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
+import java.util.UUID;
 
 /**
+ * Shop search activity stored in shops.json.
+ * <p>
+ * Kept compact as there is one per shop: world is interned, position is a packed block position
+ * and owner UUID is stored as two longs. The JSON format is handled by ShopSearchActivityTypeAdapter.
+ * <p>
+ * Shops are shared between readers once stored, so a model is never changed: the {@code with...}
+ * methods return an updated model.
  * @author myzticbean
  */
-@AllArgsConstructor
-@Getter
-@Setter
-@ToString
 public class ShopSearchActivityModel {
 
-    private String worldName;
-    private double x;
-    private double y;
-    private double z;
-    private float pitch;
-    private float yaw;
-    private String shopOwnerUUID;
-    private List<PlayerShopVisitModel> playerVisitList;
-    private boolean isHiddenFromSearch;
+    @Getter
+    private final ShopLocationKey locationKey;
+    private final long ownerUUIDMostSigBits;
+    private final long ownerUUIDLeastSigBits;
+    private final List<PlayerShopVisitModel> playerVisitList;
+    @Getter
+    private final boolean isHiddenFromSearch;
+    /** Must not be modified */
+    @Getter
+    private final ShopVisitRollupModel visitRollup;
+
+    public ShopSearchActivityModel(Location shopLocation, UUID shopOwner) {
+        this(ShopLocationKey.of(shopLocation), shopOwner);
+    }
+
+    public ShopSearchActivityModel(ShopLocationKey locationKey, UUID shopOwner) {
+        this(locationKey, shopOwner, new ArrayList<>(), false, new ShopVisitRollupModel());
+    }
+
+    /**
+     * @param playerVisitList Raw visits, owned by the model from now on
+     * @param visitRollup Rolled up visits, owned by the model from now on
+     */
+    public ShopSearchActivityModel(ShopLocationKey locationKey, UUID shopOwner, List<PlayerShopVisitModel> playerVisitList,
+                                   boolean isHiddenFromSearch, ShopVisitRollupModel visitRollup) {
+        this.locationKey = locationKey;
+        this.ownerUUIDMostSigBits = shopOwner.getMostSignificantBits();
+        this.ownerUUIDLeastSigBits = shopOwner.getLeastSignificantBits();
+        this.playerVisitList = playerVisitList;
+        this.isHiddenFromSearch = isHiddenFromSearch;
+        this.visitRollup = visitRollup;
+    }
+
+    public String getWorldName() {
+        return locationKey.worldName();
+    }
+
+    public int getBlockX() {
+        return locationKey.blockX();
+    }
+
+    public int getBlockY() {
+        return locationKey.blockY();
+    }
+
+    public int getBlockZ() {
+        return locationKey.blockZ();
+    }
+
+    public UUID getShopOwnerUUID() {
+        return new UUID(ownerUUIDMostSigBits, ownerUUIDLeastSigBits);
+    }
+
+    public boolean isOwnedBy(UUID uuid) {
+        return ownerUUIDMostSigBits == uuid.getMostSignificantBits()
+                && ownerUUIDLeastSigBits == uuid.getLeastSignificantBits();
+    }
+
+    /**
+     * @return Read-only list of raw visits still within retention
+     */
+    public List<PlayerShopVisitModel> getPlayerVisitList() {
+        return Collections.unmodifiableList(playerVisitList);
+    }
+
+    public ShopSearchActivityModel withHiddenFromSearch(boolean hideShop) {
+        return new ShopSearchActivityModel(locationKey, getShopOwnerUUID(), playerVisitList, hideShop, visitRollup);
+    }
+
+    public ShopSearchActivityModel withPlayerVisit(PlayerShopVisitModel playerShopVisit) {
+        List<PlayerShopVisitModel> updatedVisits = new ArrayList<>(playerVisitList.size() + 1);
+        updatedVisits.addAll(playerVisitList);
+        updatedVisits.add(playerShopVisit);
+        return new ShopSearchActivityModel(locationKey, getShopOwnerUUID(), updatedVisits, isHiddenFromSearch, visitRollup);
+    }
+
+    /**
+     * @return This shop with the visits and hidden state of the given shop
+     */
+    public ShopSearchActivityModel withActivityOf(ShopSearchActivityModel shop) {
+        return new ShopSearchActivityModel(locationKey, getShopOwnerUUID(), shop.playerVisitList, shop.isHiddenFromSearch, shop.visitRollup);
+    }
+
+    /**
+     * Rolls up visits past the raw retention, see {@link ShopVisitRollupModel#rollup(List, int, Instant)}
+     * @return The rolled up shop, or null if there was nothing to roll up
+     */
+    @Nullable
+    public ShopSearchActivityModel withVisitsRolledUp(int rawRetentionInDays, Instant now) {
+        List<PlayerShopVisitModel> updatedVisits = new ArrayList<>(playerVisitList);
+        ShopVisitRollupModel updatedRollup = visitRollup.copy();
+        if(!updatedRollup.rollup(updatedVisits, rawRetentionInDays, now)) {
+            return null;
+        }
+        return new ShopSearchActivityModel(locationKey, getShopOwnerUUID(), updatedVisits, isHiddenFromSearch, updatedRollup);
+    }
+
+    /**
+     * Raw visits still within retention plus all rolled up visits
+     */
+    public int getTotalVisitCount() {
+        return playerVisitList.size() + visitRollup.getTotalCount();
+    }
 
     public boolean compareWith(String targetWorldName, double targetX, double targetY, double targetZ, String targetShopOwnerUUID) {
-        return this.getWorldName().equalsIgnoreCase(targetWorldName)
-                && this.getX() == targetX
-                && this.getY() == targetY
-                && this.getZ() == targetZ
-                && this.getShopOwnerUUID().equalsIgnoreCase(targetShopOwnerUUID);
+        if(!compareWith(targetWorldName, targetX, targetY, targetZ)) {
+            return false;
+        }
+        try {
+            return isOwnedBy(UUID.fromString(targetShopOwnerUUID));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false;
+        }
     }
 
     public boolean compareWith(String targetWorldName, double targetX, double targetY, double targetZ) {
-        return (Objects.nonNull(this.getWorldName())
-                    && Objects.nonNull(targetWorldName)
-                    && this.getWorldName().equalsIgnoreCase(targetWorldName))
-                && this.getX() == targetX
-                && this.getY() == targetY
-                && this.getZ() == targetZ;
+        return targetWorldName != null && locationKey.equals(ShopLocationKey.of(targetWorldName, targetX, targetY, targetZ));
     }
 
+    @Override
+    public String toString() {
+        return "ShopSearchActivityModel(location=" + locationKey
+                + ", shopOwnerUUID=" + getShopOwnerUUID()
+                + ", playerVisits=" + getTotalVisitCount()
+                + ", isHiddenFromSearch=" + isHiddenFromSearch + ")";
+    }
 }
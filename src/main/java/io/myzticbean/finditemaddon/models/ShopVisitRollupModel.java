@@ -0,0 +1,154 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.models;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated shop visit counts, used once raw visit entries go past their retention window.
+ * <p>
+ * Hourly buckets are keyed by epoch hour, daily buckets by epoch day and monthly buckets
+ * by months since epoch (year * 12 + month). Older buckets get merged into coarser ones.
+ * @author myzticbean
+ */
+@Getter
+@ToString
+public class ShopVisitRollupModel {
+
+    private static final long HOURLY_BUCKET_RETENTION_IN_DAYS = 7;
+    private static final long DAILY_BUCKET_RETENTION_IN_DAYS = 365;
+
+    private final Map<Long, Integer> hourly = new HashMap<>();
+    private final Map<Long, Integer> daily = new HashMap<>();
+    private final Map<Long, Integer> monthly = new HashMap<>();
+
+    /**
+     * Moves raw visits older than the retention window into hourly buckets, then merges
+     * aged hourly buckets into daily ones and aged daily buckets into monthly ones.
+     * @param playerVisitList Raw visit list of the shop (entries rolled up are removed from it)
+     * @param rawRetentionInDays How many days raw visit entries are kept
+     * @param now Reference time
+     * @return true if anything was changed
+     */
+    public boolean rollup(List<PlayerShopVisitModel> playerVisitList, int rawRetentionInDays, Instant now) {
+        boolean changed = false;
+        Instant rawCutoff = now.minus(Math.max(rawRetentionInDays, 1), ChronoUnit.DAYS);
+        Iterator<PlayerShopVisitModel> visitIterator = playerVisitList.iterator();
+        while(visitIterator.hasNext()) {
+            Instant visitTime = visitIterator.next().getVisitDateTime();
+            if(visitTime.isBefore(rawCutoff)) {
+                hourly.merge(toEpochHour(visitTime), 1, Integer::sum);
+                visitIterator.remove();
+                changed = true;
+            }
+        }
+
+        long hourlyCutoff = toEpochHour(now.minus(HOURLY_BUCKET_RETENTION_IN_DAYS, ChronoUnit.DAYS));
+        Iterator<Map.Entry<Long, Integer>> hourlyIterator = hourly.entrySet().iterator();
+        while(hourlyIterator.hasNext()) {
+            Map.Entry<Long, Integer> bucket = hourlyIterator.next();
+            if(bucket.getKey() < hourlyCutoff) {
+                daily.merge(Math.floorDiv(bucket.getKey(), 24L), bucket.getValue(), Integer::sum);
+                hourlyIterator.remove();
+                changed = true;
+            }
+        }
+
+        long dailyCutoff = toEpochDay(now.minus(DAILY_BUCKET_RETENTION_IN_DAYS, ChronoUnit.DAYS));
+        Iterator<Map.Entry<Long, Integer>> dailyIterator = daily.entrySet().iterator();
+        while(dailyIterator.hasNext()) {
+            Map.Entry<Long, Integer> bucket = dailyIterator.next();
+            if(bucket.getKey() < dailyCutoff) {
+                monthly.merge(epochDayToEpochMonth(bucket.getKey()), bucket.getValue(), Integer::sum);
+                dailyIterator.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public ShopVisitRollupModel copy() {
+        ShopVisitRollupModel copy = new ShopVisitRollupModel();
+        copy.hourly.putAll(hourly);
+        copy.daily.putAll(daily);
+        copy.monthly.putAll(monthly);
+        return copy;
+    }
+
+    public int getTotalCount() {
+        return sum(hourly) + sum(daily) + sum(monthly);
+    }
+
+    /**
+     * Counts rolled up visits since the given time. Buckets are counted as a whole, so the
+     * result is accurate to the granularity of the bucket the cutoff falls in.
+     */
+    public int getCountSince(Instant since) {
+        long sinceHour = toEpochHour(since);
+        long sinceDay = toEpochDay(since);
+        long sinceMonth = epochDayToEpochMonth(sinceDay);
+        int count = 0;
+        for(Map.Entry<Long, Integer> bucket : hourly.entrySet()) {
+            if(bucket.getKey() >= sinceHour) {
+                count += bucket.getValue();
+            }
+        }
+        for(Map.Entry<Long, Integer> bucket : daily.entrySet()) {
+            if(bucket.getKey() >= sinceDay) {
+                count += bucket.getValue();
+            }
+        }
+        for(Map.Entry<Long, Integer> bucket : monthly.entrySet()) {
+            if(bucket.getKey() >= sinceMonth) {
+                count += bucket.getValue();
+            }
+        }
+        return count;
+    }
+
+    private static int sum(Map<Long, Integer> buckets) {
+        int total = 0;
+        for(int value : buckets.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static long toEpochHour(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 3600L);
+    }
+
+    private static long toEpochDay(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), 86400L);
+    }
+
+    private static long epochDayToEpochMonth(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12L + (date.getMonthValue() - 1);
+    }
+}
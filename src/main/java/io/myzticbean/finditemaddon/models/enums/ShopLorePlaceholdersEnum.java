@@ -30,7 +30,8 @@ public enum ShopLorePlaceholdersEnum {
     SHOP_LOCATION("{SHOP_LOC}"),
     SHOP_WORLD("{SHOP_WORLD}"),
     NEAREST_WARP("{NEAREST_WARP}"),
-    SHOP_VISITS("{SHOP_VISITS}");
+    SHOP_VISITS("{SHOP_VISITS}"),
+    SHOP_VISITS_LAST_N_DAYS("{SHOP_VISITS_<N>D}");
     private final String placeholder;
 
     ShopLorePlaceholdersEnum(String placeholder) {
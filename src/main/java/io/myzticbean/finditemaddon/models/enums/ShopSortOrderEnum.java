@@ -0,0 +1,48 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.models.enums;
+
+/**
+ * Sort orders players can pick in the search GUI
+ * @author myzticbean
+ */
+public enum ShopSortOrderEnum {
+
+    DEFAULT("Default"),
+    PRICE_LOW_TO_HIGH("Price (low to high)"),
+    PRICE_HIGH_TO_LOW("Price (high to low)"),
+    STOCK_HIGH_TO_LOW("Stock / Space (high to low)"),
+    DISTANCE("Distance"),
+    VISITS("Most visited");
+
+    private final String displayName;
+
+    ShopSortOrderEnum(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String value() {
+        return displayName;
+    }
+
+    public ShopSortOrderEnum next() {
+        ShopSortOrderEnum[] sortOrders = values();
+        return sortOrders[(ordinal() + 1) % sortOrders.length];
+    }
+}
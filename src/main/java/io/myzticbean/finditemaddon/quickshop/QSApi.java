@@ -28,6 +28,7 @@ import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -36,6 +37,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Interface for QS API.
@@ -58,6 +60,17 @@ public interface QSApi<QSType, Shop> {
      */
     List<FoundShopItemModel> findItemBasedOnTypeFromAllShops(ItemStack item, boolean toBuy, Player searchingPlayer);
 
+    /**
+     * Search based on Item Type from all server shops, handing out the first page of results as soon as it is
+     * known if the sort order allows it (random). The complete result starts with the same shops.
+     * @param firstPageSize Number of shops on the first page
+     * @param firstPageConsumer Called at most once, from the search thread, with the first page of results
+     */
+    default List<FoundShopItemModel> findItemBasedOnTypeFromAllShops(ItemStack item, boolean toBuy, Player searchingPlayer,
+                                                                     int firstPageSize, Consumer<List<FoundShopItemModel>> firstPageConsumer) {
+        return findItemBasedOnTypeFromAllShops(item, toBuy, searchingPlayer);
+    }
+
     /**
      * Search based on display name of item from all server shops
      * @param displayName
@@ -93,6 +106,17 @@ public interface QSApi<QSType, Shop> {
      */
     List<FoundShopItemModel> fetchAllItemsFromAllShops(boolean toBuy, Player searchingPlayer);
 
+    /**
+     * Fetch all items from all server shops, handing out the first page of results as soon as it is known.
+     * The complete result starts with the same shops.
+     * @param firstPageSize Number of shops on the first page
+     * @param firstPageConsumer Called at most once, from the search thread, with the first page of results
+     */
+    default List<FoundShopItemModel> fetchAllItemsFromAllShops(boolean toBuy, Player searchingPlayer,
+                                                               int firstPageSize, Consumer<List<FoundShopItemModel>> firstPageConsumer) {
+        return fetchAllItemsFromAllShops(toBuy, searchingPlayer);
+    }
+
     Material getShopSignMaterial();
 
     Shop findShopAtLocation(Block block);
@@ -110,6 +134,13 @@ public interface QSApi<QSType, Shop> {
 
     int processUnknownStockSpace(Location shopLoc, boolean toBuy);
 
+    /**
+     * Reads the current price and stock/space of a found shop. Needs to run in MAIN thread.
+     * @return The found shop with current price and stock/space, or null if the shop does not exist anymore
+     */
+    @Nullable
+    FoundShopItemModel refreshFoundShop(FoundShopItemModel foundShop);
+
     static List<FoundShopItemModel> sortShops(int sortingMethod, List<FoundShopItemModel> shopsFoundList, boolean toBuy) {
         switch (sortingMethod) {
             // Random
@@ -29,10 +29,12 @@ import com.ghostchu.quickshop.api.shop.permission.BuiltInShopPermission;
 import com.ghostchu.quickshop.database.DataTables;
 import com.ghostchu.quickshop.util.Util;
 import io.myzticbean.finditemaddon.quickshop.QSApi;
+import io.myzticbean.finditemaddon.quickshop.index.ShopSearchIndex;
 import io.myzticbean.finditemaddon.commands.quickshop.subcommands.FindItemCmdHikariImpl;
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.models.CachedShop;
 import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
 import io.myzticbean.finditemaddon.models.ShopSearchActivityModel;
 import io.myzticbean.finditemaddon.models.enums.PlayerPermsEnum;
 import io.myzticbean.finditemaddon.utils.json.HiddenShopStorageUtil;
@@ -41,6 +43,7 @@ import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.entity.Player;
@@ -48,19 +51,25 @@ import org.bukkit.inventory.ItemStack;
 import io.myzticbean.finditemaddon.utils.EnchantedBookSearchUtil;
 import io.myzticbean.finditemaddon.utils.CustomItemSearchUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
  * Implementation of QSApi for Hikari
@@ -85,13 +94,24 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
     }
 
     public List<FoundShopItemModel> findItemBasedOnTypeFromAllShops(ItemStack item, boolean toBuy, Player searchingPlayer) {
+        return findItemBasedOnTypeFromAllShops(item, toBuy, searchingPlayer, 0, null);
+    }
+
+    @Override
+    public List<FoundShopItemModel> findItemBasedOnTypeFromAllShops(ItemStack item, boolean toBuy, Player searchingPlayer,
+                                                                    int firstPageSize, @Nullable Consumer<List<FoundShopItemModel>> firstPageConsumer) {
         Logger.logDebugInfo(IS_MAIN_THREAD + Bukkit.isPrimaryThread());
         Logger.logDebugInfo("Search mode: " + (toBuy ? "BUY (looking for selling shops)" : "SELL (looking for buying shops)"));
         Logger.logDebugInfo("Searching for item type: " + item.getType());
         var begin = Instant.now();
         List<FoundShopItemModel> shopsFoundList = new ArrayList<>();
-        List<Shop> allShops = fetchAllShopsFromQS();
-        Logger.logDebugInfo(QS_TOTAL_SHOPS_ON_SERVER + allShops.size());
+        List<Shop> allShops = fetchCandidateShopsFromQS(ShopSearchIndex.findByMaterial(item.getType()));
+        // With random sorting, shops are shuffled before the scan so the results come out in their final order
+        boolean isRandomSorting = FindItemAddOn.getConfigProvider().SHOP_SORTING_METHOD == 1;
+        if(isRandomSorting) {
+            allShops = new ArrayList<>(allShops);
+            Collections.shuffle(allShops);
+        }
         for(Shop shopIterator : allShops) {
             // Debug: Log each shop's type
             Logger.logDebugInfo("Checking shop at " + shopIterator.getLocation() +
@@ -109,10 +129,13 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
                     && (!HiddenShopStorageUtil.isShopHidden(shopIterator))) {
                 Logger.logDebugInfo("Shop passed all filters, processing...");
                 processPotentialShopMatchAndAddToFoundList(toBuy, shopIterator, shopsFoundList, searchingPlayer);
+                if(isRandomSorting && firstPageConsumer != null && shopsFoundList.size() == firstPageSize) {
+                    firstPageConsumer.accept(List.copyOf(shopsFoundList));
+                }
             }
         }
         Logger.logDebugInfo("Total shops found after filtering: " + shopsFoundList.size());
-        List<FoundShopItemModel> sortedShops = handleShopSorting(toBuy, shopsFoundList);
+        List<FoundShopItemModel> sortedShops = isRandomSorting ? shopsFoundList : handleShopSorting(toBuy, shopsFoundList);
         QSApi.logTimeTookMsg(begin);
         return sortedShops;
     }
@@ -200,8 +223,7 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
         Logger.logDebugInfo(IS_MAIN_THREAD + Bukkit.isPrimaryThread());
         var begin = Instant.now();
         List<FoundShopItemModel> shopsFoundList = new ArrayList<>();
-        List<Shop> allShops = fetchAllShopsFromQS();
-        Logger.logDebugInfo(QS_TOTAL_SHOPS_ON_SERVER + allShops.size());
+        List<Shop> allShops = fetchCandidateShopsFromQS(ShopSearchIndex.findByDisplayName(displayName));
         for(Shop shopIterator : allShops) {
             // check for quickshop hikari internal per-shop based search permission
             if(shopIterator.playerAuthorize(searchingPlayer.getUniqueId(), BuiltInShopPermission.SEARCH)
@@ -226,8 +248,7 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
         Logger.logDebugInfo(IS_MAIN_THREAD + Bukkit.isPrimaryThread());
         var begin = Instant.now();
         List<FoundShopItemModel> shopsFoundList = new ArrayList<>();
-        List<Shop> allShops = fetchAllShopsFromQS();
-        Logger.logDebugInfo(QS_TOTAL_SHOPS_ON_SERVER + allShops.size());
+        List<Shop> allShops = fetchCandidateShopsFromQS(ShopSearchIndex.findByStoredEnchantment(enchantment));
         for(Shop shopIterator : allShops) {
             // check for quickshop hikari internal per-shop based search permission
             if(shopIterator.playerAuthorize(searchingPlayer.getUniqueId(), BuiltInShopPermission.SEARCH)
@@ -250,8 +271,7 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
         Logger.logDebugInfo(IS_MAIN_THREAD + Bukkit.isPrimaryThread());
         var begin = Instant.now();
         List<FoundShopItemModel> shopsFoundList = new ArrayList<>();
-        List<Shop> allShops = fetchAllShopsFromQS();
-        Logger.logDebugInfo(QS_TOTAL_SHOPS_ON_SERVER + allShops.size());
+        List<Shop> allShops = fetchCandidateShopsFromQS(ShopSearchIndex.findByCustomItemId(customItemId));
         for(Shop shopIterator : allShops) {
             // check for quickshop hikari internal per-shop based search permission
             if(shopIterator.playerAuthorize(searchingPlayer.getUniqueId(), BuiltInShopPermission.SEARCH)
@@ -271,10 +291,19 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
     }
 
     public List<FoundShopItemModel> fetchAllItemsFromAllShops(boolean toBuy, Player searchingPlayer) {
+        return fetchAllItemsFromAllShops(toBuy, searchingPlayer, 0, null);
+    }
+
+    @Override
+    public List<FoundShopItemModel> fetchAllItemsFromAllShops(boolean toBuy, Player searchingPlayer,
+                                                              int firstPageSize, @Nullable Consumer<List<FoundShopItemModel>> firstPageConsumer) {
         Logger.logDebugInfo(IS_MAIN_THREAD + Bukkit.isPrimaryThread());
         var begin = Instant.now();
         List<FoundShopItemModel> shopsFoundList = new ArrayList<>();
-        List<Shop> allShops = fetchAllShopsFromQS();
+        // Results of this search are always in random order: shuffling the shops before the scan gives
+        // the results in their final order, so the first page is known before the scan is complete
+        List<Shop> allShops = new ArrayList<>(fetchAllShopsFromQS());
+        Collections.shuffle(allShops);
         Logger.logDebugInfo(QS_TOTAL_SHOPS_ON_SERVER + allShops.size());
         for(Shop shopIterator : allShops) {
             // check for quickshop hikari internal per-shop based search permission
@@ -285,15 +314,40 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
                     // check for shop if hidden
                     && (!HiddenShopStorageUtil.isShopHidden(shopIterator))) {
                 processPotentialShopMatchAndAddToFoundList(toBuy, shopIterator, shopsFoundList, searchingPlayer);
+                if(firstPageConsumer != null && shopsFoundList.size() == firstPageSize) {
+                    firstPageConsumer.accept(List.copyOf(shopsFoundList));
+                }
             }
         }
-        List<FoundShopItemModel> sortedShops = new ArrayList<>(shopsFoundList);
-        if(!shopsFoundList.isEmpty()) {
-            int sortingMethod = 1;
-            sortedShops = QSApi.sortShops(sortingMethod, shopsFoundList, toBuy);
-        }
         QSApi.logTimeTookMsg(begin);
-        return sortedShops;
+        return shopsFoundList;
+    }
+
+    /**
+     * Resolves the candidate shops from the search index, keeping the loaded-shops-only setting.
+     * Falls back to all shops if the index is not ready yet.
+     * @param candidateKeys Locations from {@link ShopSearchIndex}, or null if it is not ready
+     */
+    private List<Shop> fetchCandidateShopsFromQS(@Nullable Collection<ShopLocationKey> candidateKeys) {
+        if (candidateKeys == null) {
+            List<Shop> allShops = fetchAllShopsFromQS();
+            Logger.logDebugInfo(QS_TOTAL_SHOPS_ON_SERVER + allShops.size());
+            return allShops;
+        }
+        boolean loadedShopsOnly = FindItemAddOn.getConfigProvider().SEARCH_LOADED_SHOPS_ONLY;
+        List<Shop> candidateShops = new ArrayList<>(candidateKeys.size());
+        for (ShopLocationKey key : candidateKeys) {
+            World world = Bukkit.getWorld(key.worldName());
+            if (world == null) {
+                continue;
+            }
+            Shop shop = api.getShopManager().getShop(new Location(world, key.blockX(), key.blockY(), key.blockZ()));
+            if (shop != null && (!loadedShopsOnly || shop.isLoaded())) {
+                candidateShops.add(shop);
+            }
+        }
+        Logger.logDebugInfo("Candidate shops from search index: " + candidateShops.size());
+        return candidateShops;
     }
 
     private List<Shop> fetchAllShopsFromQS() {
@@ -349,37 +403,20 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
         // now check shops from temp globalShopsList in current globalShopsList and pull playerVisit data
         List<ShopSearchActivityModel> tempGlobalShopsList = new ArrayList<>();
         for (Shop shop_i : getAllShops()) {
-            Location shopLoc = shop_i.getLocation();
-            tempGlobalShopsList.add(new ShopSearchActivityModel(
-                    shopLoc.getWorld().getName(),
-                    shopLoc.getX(),
-                    shopLoc.getY(),
-                    shopLoc.getZ(),
-                    shopLoc.getPitch(),
-                    shopLoc.getYaw(),
-                    convertQUserToUUID(shop_i.getOwner()).toString(),
-                    new ArrayList<>(),
-                    false
-            ));
+            tempGlobalShopsList.add(new ShopSearchActivityModel(shop_i.getLocation(), convertQUserToUUID(shop_i.getOwner())));
         }
 
-        for (ShopSearchActivityModel shop_temp : tempGlobalShopsList) {
-            ShopSearchActivityModel tempShopToRemove = null;
-            for (ShopSearchActivityModel shop_global : globalShopsList) {
-                if (shop_temp.getWorldName().equalsIgnoreCase(shop_global.getWorldName())
-                        && shop_temp.getX() == shop_global.getX()
-                        && shop_temp.getY() == shop_global.getY()
-                        && shop_temp.getZ() == shop_global.getZ()
-                        && shop_temp.getShopOwnerUUID().equalsIgnoreCase(shop_global.getShopOwnerUUID())
-                ) {
-                    shop_temp.setPlayerVisitList(shop_global.getPlayerVisitList());
-                    shop_temp.setHiddenFromSearch(shop_global.isHiddenFromSearch());
-                    tempShopToRemove = shop_global;
-                    break;
-                }
+        // index stored shops by location, so that merging is a single pass
+        Map<ShopLocationKey, ShopSearchActivityModel> storedShopsMap = new HashMap<>(globalShopsList.size() * 2);
+        for (ShopSearchActivityModel shop_global : globalShopsList) {
+            storedShopsMap.put(shop_global.getLocationKey(), shop_global);
+        }
+        for (int i = 0; i < tempGlobalShopsList.size(); i++) {
+            ShopSearchActivityModel shop_temp = tempGlobalShopsList.get(i);
+            ShopSearchActivityModel shop_global = storedShopsMap.get(shop_temp.getLocationKey());
+            if (shop_global != null && shop_global.isOwnedBy(shop_temp.getShopOwnerUUID())) {
+                tempGlobalShopsList.set(i, shop_temp.withActivityOf(shop_global));
             }
-            if (tempShopToRemove != null)
-                globalShopsList.remove(tempShopToRemove);
         }
         Logger.logDebugInfo("Shops List sync complete. Time took: " + (System.currentTimeMillis() - start) + "ms.");
         return tempGlobalShopsList;
@@ -427,7 +464,27 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
         }
     }
 
-    private UUID convertQUserToUUID(QUser qUser) {
+    @Override
+    @Nullable
+    public FoundShopItemModel refreshFoundShop(FoundShopItemModel foundShop) {
+        Util.ensureThread(false);
+        Location shopLocation = foundShop.getShopLocation();
+        Shop qsShop = shopLocation.getWorld() == null ? null : api.getShopManager().getShop(shopLocation);
+        if(qsShop == null) {
+            return null;
+        }
+        int stockOrSpace = foundShop.isToBuy() ? qsShop.getRemainingStock() : qsShop.getRemainingSpace();
+        return new FoundShopItemModel(
+                qsShop.getPrice(),
+                QSApi.processStockOrSpace(stockOrSpace),
+                foundShop.getShopOwner(),
+                qsShop.getLocation(),
+                qsShop::getItem,
+                foundShop.isToBuy()
+        );
+    }
+
+    public static UUID convertQUserToUUID(QUser qUser) {
         Optional<UUID> uuid = qUser.getUniqueIdOptional();
         if (uuid.isPresent()) {
             return uuid.get();
@@ -593,7 +650,7 @@ public class QSHikariAPIHandler implements QSApi<QuickShop, Shop> {
                 QSApi.processStockOrSpace(stockOrSpace),
                 shopIterator.getOwner().getUniqueIdOptional().orElse(new UUID(0, 0)),
                 shopIterator.getLocation(),
-                shopIterator.getItem(),
+                shopIterator::getItem,
                 toBuy
         ));
         Logger.logDebugInfo("Shop added to results list. Total shops found so far: " + shopsFoundList.size());
@@ -23,6 +23,7 @@ import io.myzticbean.finditemaddon.commands.quickshop.subcommands.FindItemCmdRer
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.models.CachedShop;
 import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
 import io.myzticbean.finditemaddon.models.ShopSearchActivityModel;
 import io.myzticbean.finditemaddon.models.enums.PlayerPermsEnum;
 import io.myzticbean.finditemaddon.utils.json.HiddenShopStorageUtil;
@@ -46,7 +47,9 @@ import org.maxgamer.quickshop.api.shop.Shop;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -99,7 +102,7 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
                             QSApi.processStockOrSpace((toBuy ? getRemainingStockOrSpaceFromShopCache(shop_i, true) : getRemainingStockOrSpaceFromShopCache(shop_i, false))),
                             shop_i.getOwner(),
                             shop_i.getLocation(),
-                            shop_i.getItem(),
+                            shop_i::getItem,
                             toBuy
                     ));
                 }
@@ -138,7 +141,7 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
                                         QSApi.processStockOrSpace((toBuy ? getRemainingStockOrSpaceFromShopCache(shop_i, true) : getRemainingStockOrSpaceFromShopCache(shop_i, false))),
                                         shop_i.getOwner(),
                                         shop_i.getLocation(),
-                                        shop_i.getItem(),
+                                        shop_i::getItem,
                                         toBuy
                                 ));
                             }
@@ -180,7 +183,7 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
                             QSApi.processStockOrSpace((toBuy ? getRemainingStockOrSpaceFromShopCache(shop_i, true) : getRemainingStockOrSpaceFromShopCache(shop_i, false))),
                             shop_i.getOwner(),
                             shop_i.getLocation(),
-                            shop_i.getItem(),
+                            shop_i::getItem,
                             toBuy
                     ));
                 }
@@ -219,7 +222,7 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
                             QSApi.processStockOrSpace((toBuy ? getRemainingStockOrSpaceFromShopCache(shop_i, true) : getRemainingStockOrSpaceFromShopCache(shop_i, false))),
                             shop_i.getOwner(),
                             shop_i.getLocation(),
-                            shop_i.getItem(),
+                            shop_i::getItem,
                             toBuy
                     ));
                 }
@@ -256,7 +259,7 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
                             QSApi.processStockOrSpace((toBuy ? getRemainingStockOrSpaceFromShopCache(shop_i, true) : getRemainingStockOrSpaceFromShopCache(shop_i, false))),
                             shop_i.getOwner(),
                             shop_i.getLocation(),
-                            shop_i.getItem(),
+                            shop_i::getItem,
                             toBuy
                     ));
                 }
@@ -300,36 +303,19 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
         List<ShopSearchActivityModel> tempGlobalShopsList = new ArrayList<>();
 
         for(Shop shop_i : getAllShops()) {
-            Location shopLoc = shop_i.getLocation();
-            tempGlobalShopsList.add(new ShopSearchActivityModel(
-                    shopLoc.getWorld().getName(),
-                    shopLoc.getX(),
-                    shopLoc.getY(),
-                    shopLoc.getZ(),
-                    shopLoc.getPitch(),
-                    shopLoc.getYaw(),
-                    shop_i.getOwner().toString(),
-                    new ArrayList<>(),
-                    false
-            ));
+            tempGlobalShopsList.add(new ShopSearchActivityModel(shop_i.getLocation(), shop_i.getOwner()));
         }
-        for(ShopSearchActivityModel shop_temp : tempGlobalShopsList) {
-            ShopSearchActivityModel tempShopToRemove = null;
-            for(ShopSearchActivityModel shop_global : globalShopsList) {
-                if(shop_temp.getWorldName().equalsIgnoreCase(shop_global.getWorldName())
-                        && shop_temp.getX() == shop_global.getX()
-                        && shop_temp.getY() == shop_global.getY()
-                        && shop_temp.getZ() == shop_global.getZ()
-                        && shop_temp.getShopOwnerUUID().equalsIgnoreCase(shop_global.getShopOwnerUUID())
-                ) {
-                    shop_temp.setPlayerVisitList(shop_global.getPlayerVisitList());
-                    shop_temp.setHiddenFromSearch(shop_global.isHiddenFromSearch());
-                    tempShopToRemove = shop_global;
-                    break;
-                }
+        // index stored shops by location, so that merging is a single pass
+        Map<ShopLocationKey, ShopSearchActivityModel> storedShopsMap = new HashMap<>(globalShopsList.size() * 2);
+        for(ShopSearchActivityModel shop_global : globalShopsList) {
+            storedShopsMap.put(shop_global.getLocationKey(), shop_global);
+        }
+        for(int i = 0; i < tempGlobalShopsList.size(); i++) {
+            ShopSearchActivityModel shop_temp = tempGlobalShopsList.get(i);
+            ShopSearchActivityModel shop_global = storedShopsMap.get(shop_temp.getLocationKey());
+            if(shop_global != null && shop_global.isOwnedBy(shop_temp.getShopOwnerUUID())) {
+                tempGlobalShopsList.set(i, shop_temp.withActivityOf(shop_global));
             }
-            if(tempShopToRemove != null)
-                globalShopsList.remove(tempShopToRemove);
         }
         return tempGlobalShopsList;
     }
@@ -470,5 +456,30 @@ public class QSReremakeAPIHandler implements QSApi<QuickShop, Shop> {
         return -2;
     }
 
+    @Override
+    @Nullable
+    public FoundShopItemModel refreshFoundShop(FoundShopItemModel foundShop) {
+        Location shopLocation = foundShop.getShopLocation();
+        Shop qsShop = shopLocation.getWorld() == null ? null : api.getShopManager().getShop(shopLocation);
+        if(qsShop == null) {
+            return null;
+        }
+        CachedShop cachedShop = CachedShop.builder()
+                .shopLocation(qsShop.getLocation())
+                .remainingStock(qsShop.getRemainingStock())
+                .remainingSpace(qsShop.getRemainingSpace())
+                .lastFetched(new Date())
+                .build();
+        shopCache.put(cachedShop.getShopLocation(), cachedShop);
+        return new FoundShopItemModel(
+                qsShop.getPrice(),
+                QSApi.processStockOrSpace(foundShop.isToBuy() ? cachedShop.getRemainingStock() : cachedShop.getRemainingSpace()),
+                foundShop.getShopOwner(),
+                qsShop.getLocation(),
+                qsShop::getItem,
+                foundShop.isToBuy()
+        );
+    }
+
 
 }
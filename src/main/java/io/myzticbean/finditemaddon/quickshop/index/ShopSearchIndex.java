@@ -0,0 +1,549 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.quickshop.index;
+
+import com.ghostchu.quickshop.api.QuickShopAPI;
+import com.ghostchu.quickshop.api.shop.Shop;
+import io.myzticbean.finditemaddon.FindItemAddOn;
+import io.myzticbean.finditemaddon.dependencies.ExecutableItemsPlugin;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import io.myzticbean.finditemaddon.utils.WorldNameDictionary;
+import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search index over QuickShop-Hikari shops, keyed by shop location.
+ * <p>
+ * Holds a descriptor per shop (material, display name, stored enchantments, ExecutableItems id)
+ * and postings lists for each of them, so searches only visit candidate shops instead of every
+ * shop on the server. Candidates are always re-checked against the live shop by the caller.
+ * <p>
+ * The index is written to {@value #INDEX_FILE_NAME} on shutdown and read back on startup, after
+ * which only the difference against QuickShop's current shops is re-indexed: shops that were added
+ * or removed, and shops whose item fingerprint no longer matches.
+ * Until the index is ready, candidate lookups return null and callers fall back to a full scan.
+ * @author myzticbean
+ */
+@UtilityClass
+public class ShopSearchIndex {
+
+    private static final String INDEX_FILE_NAME = "shop-index.bin";
+    private static final int INDEX_FILE_MAGIC = 0x51534649;
+    private static final int INDEX_FILE_VERSION = 2;
+    private static final int NAME_GRAM_LENGTH = 3;
+
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final List<PendingUpdate> pendingUpdates = new ArrayList<>();
+    private static Postings postings = new Postings();
+    private static volatile boolean ready = false;
+
+    /**
+     * Descriptor of what a shop is selling/buying, as far as searches are concerned
+     * @param displayName Lower-cased display name, or null if the item has none
+     * @param customItemId Lower-cased ExecutableItems id, or null if it is not one
+     * @param itemFingerprint {@link #fingerprintOf(Material, ItemMeta)} of the item the entry was made from
+     */
+    private record Entry(ShopLocationKey key, String material, @Nullable String displayName,
+                         List<String> storedEnchantments, @Nullable String customItemId, int itemFingerprint) {}
+
+    private record PendingUpdate(ShopLocationKey key, @Nullable Entry entry) {}
+
+    public static boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads the index file (if any) on a virtual thread and re-indexes only the shops that were
+     * added, removed or whose item fingerprint changed since it was written. Shop changes seen while this runs
+     * are queued and replayed once the index is swapped in.
+     */
+    public static void loadAsync() {
+        VirtualThreadScheduler.runTaskAsync(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                Postings loaded = readFromFile();
+                boolean fromFile = loaded != null;
+                if (loaded == null) {
+                    loaded = new Postings();
+                }
+                int changed = validateAgainstQuickShop(loaded);
+                publish(loaded);
+                Logger.logInfo((fromFile ? "Loaded shop search index from file (" + changed + " shops re-indexed)" : "Built shop search index")
+                        + " with " + loaded.entries.size() + " shops. Time took: " + (System.currentTimeMillis() - start) + "ms.");
+            } catch (Exception e) {
+                Logger.logError("Error while building shop search index, searches will scan all shops", e);
+            }
+        });
+    }
+
+    /**
+     * Writes the index to {@value #INDEX_FILE_NAME}. Skipped if the index was never built.
+     */
+    public static void saveToFile() {
+        if (!ready) {
+            return;
+        }
+        File file = getIndexFile();
+        file.getParentFile().mkdir();
+        // written to a temporary file first, so a crash while saving never leaves a partial index behind
+        File tempFile = new File(file.getPath() + ".tmp");
+        lock.readLock().lock();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile, false)))) {
+                postings.writeTo(out);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Logger.logInfo("Saved shop search index to file");
+        } catch (IOException e) {
+            Logger.logError("Could not save " + INDEX_FILE_NAME, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static void indexShop(Shop shop) {
+        Entry entry = describe(ShopLocationKey.of(shop.getLocation()), shop.getItem());
+        apply(new PendingUpdate(entry.key(), entry));
+    }
+
+    public static void removeShop(Shop shop) {
+        apply(new PendingUpdate(ShopLocationKey.of(shop.getLocation()), null));
+    }
+
+    @Nullable
+    public static Collection<ShopLocationKey> findByMaterial(Material material) {
+        return lookup(p -> p.byMaterial.get(material.name()));
+    }
+
+    /**
+     * Shops whose display name may contain the query. Queries shorter than a name gram
+     * return every shop that has a display name.
+     */
+    @Nullable
+    public static Collection<ShopLocationKey> findByDisplayName(String query) {
+        String lowerQuery = query.toLowerCase();
+        if (lowerQuery.length() < NAME_GRAM_LENGTH) {
+            return lookup(p -> p.namedShops);
+        }
+        return lookup(p -> {
+            Set<ShopLocationKey> smallest = null;
+            List<Set<ShopLocationKey>> gramPostings = new ArrayList<>();
+            for (String gram : nameGramsOf(lowerQuery)) {
+                Set<ShopLocationKey> keys = p.byNameGram.get(gram);
+                if (keys == null) {
+                    return null;
+                }
+                gramPostings.add(keys);
+                if (smallest == null || keys.size() < smallest.size()) {
+                    smallest = keys;
+                }
+            }
+            Set<ShopLocationKey> result = new HashSet<>(smallest);
+            for (Set<ShopLocationKey> keys : gramPostings) {
+                if (keys != smallest) {
+                    result.retainAll(keys);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Nullable
+    public static Collection<ShopLocationKey> findByStoredEnchantment(Enchantment enchantment) {
+        return lookup(p -> p.byEnchantment.get(enchantment.getKey().getKey()));
+    }
+
+    @Nullable
+    public static Collection<ShopLocationKey> findByCustomItemId(String customItemId) {
+        return lookup(p -> p.byCustomItemId.get(customItemId.toLowerCase()));
+    }
+
+    private interface PostingsQuery {
+        @Nullable Set<ShopLocationKey> find(Postings postings);
+    }
+
+    @Nullable
+    private static Collection<ShopLocationKey> lookup(PostingsQuery query) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Set<ShopLocationKey> keys = query.find(postings);
+            return keys == null ? Collections.emptyList() : new ArrayList<>(keys);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(PendingUpdate update) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                pendingUpdates.add(update);
+            } else {
+                postings.apply(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void publish(Postings loaded) {
+        lock.writeLock().lock();
+        try {
+            for (PendingUpdate update : pendingUpdates) {
+                loaded.apply(update);
+            }
+            pendingUpdates.clear();
+            postings = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops indexed shops QuickShop no longer has and indexes the ones the index does not have
+     * (or whose item fingerprint no longer matches the live item). Returns the number of shops that changed.
+     * Unchanged shops are not described again, which is what makes a restart cheaper than a rebuild.
+     */
+    private static int validateAgainstQuickShop(Postings loaded) {
+        List<Shop> allShops = QuickShopAPI.getInstance().getShopManager().getAllShops();
+        Set<ShopLocationKey> currentKeys = new HashSet<>(allShops.size() * 2);
+        int changed = 0;
+        for (Shop shop : allShops) {
+            ShopLocationKey key = ShopLocationKey.of(shop.getLocation());
+            currentKeys.add(key);
+            Entry existing = loaded.entries.get(key);
+            ItemStack item = shop.getItem();
+            if (existing == null || existing.itemFingerprint() != fingerprintOf(item)) {
+                loaded.add(describe(key, item));
+                changed++;
+            }
+        }
+        for (ShopLocationKey key : new ArrayList<>(loaded.entries.keySet())) {
+            if (!currentKeys.contains(key)) {
+                loaded.remove(key);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static Entry describe(ShopLocationKey key, ItemStack item) {
+        String displayName = null;
+        List<String> storedEnchantments = List.of();
+        ItemMeta meta = item.hasItemMeta() ? item.getItemMeta() : null;
+        if (meta != null) {
+            if (meta.hasDisplayName()) {
+                displayName = meta.getDisplayName().toLowerCase();
+            }
+            if (meta instanceof EnchantmentStorageMeta storageMeta && storageMeta.hasStoredEnchants()) {
+                storedEnchantments = new ArrayList<>(storageMeta.getStoredEnchants().size());
+                for (Enchantment enchantment : storageMeta.getStoredEnchants().keySet()) {
+                    storedEnchantments.add(enchantment.getKey().getKey());
+                }
+            }
+        }
+        String customItemId = null;
+        if (isExecutableItemsEnabled()) {
+            customItemId = FindItemAddOn.getExecutableItemsPlugin().getExecutableItemId(item);
+            if (customItemId != null) {
+                customItemId = customItemId.toLowerCase();
+            }
+        }
+        return new Entry(key, item.getType().name(), displayName, storedEnchantments, customItemId,
+                fingerprintOf(item.getType(), meta));
+    }
+
+    private static int fingerprintOf(ItemStack item) {
+        return fingerprintOf(item.getType(), item.hasItemMeta() ? item.getItemMeta() : null);
+    }
+
+    /**
+     * Cheap hash of an item that stays the same across restarts for the same item. Items without
+     * meta, most shops, only hash the material name. If a meta hash does change across restarts,
+     * the shop is just described again.
+     */
+    private static int fingerprintOf(Material material, @Nullable ItemMeta meta) {
+        return 31 * material.name().hashCode() + (meta != null ? meta.hashCode() : 0);
+    }
+
+    private static boolean isExecutableItemsEnabled() {
+        ExecutableItemsPlugin executableItemsPlugin = FindItemAddOn.getExecutableItemsPlugin();
+        return executableItemsPlugin != null && executableItemsPlugin.isEnabled();
+    }
+
+    private static List<String> nameGramsOf(String lowerName) {
+        List<String> grams = new ArrayList<>(Math.max(0, lowerName.length() - NAME_GRAM_LENGTH + 1));
+        for (int i = 0; i + NAME_GRAM_LENGTH <= lowerName.length(); i++) {
+            grams.add(lowerName.substring(i, i + NAME_GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static File getIndexFile() {
+        return new File(FindItemAddOn.getInstance().getDataFolder().getAbsolutePath() + "/" + INDEX_FILE_NAME);
+    }
+
+    /**
+     * Reads the index file. It is kept after loading: if the server crashes before the next save, the
+     * stale index is corrected against QuickShop on the next startup like any other. Returns null if
+     * there is no usable file.
+     */
+    @Nullable
+    private static Postings readFromFile() {
+        File file = getIndexFile();
+        if (!file.exists()) {
+            return null;
+        }
+        Postings loaded = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != INDEX_FILE_MAGIC || in.readInt() != INDEX_FILE_VERSION) {
+                Logger.logInfo(INDEX_FILE_NAME + " is from another version, rebuilding shop search index");
+            } else if (in.readBoolean() != isExecutableItemsEnabled()) {
+                Logger.logInfo("ExecutableItems availability changed, rebuilding shop search index");
+            } else {
+                loaded = Postings.readFrom(in);
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.logError("Could not read " + INDEX_FILE_NAME + ", rebuilding shop search index", e);
+            loaded = null;
+        }
+        return loaded;
+    }
+
+    /**
+     * Descriptors and postings lists. Not thread-safe, guarded by {@link #lock} once published.
+     */
+    private static final class Postings {
+        private final Map<ShopLocationKey, Entry> entries = new HashMap<>();
+        private final Map<String, Set<ShopLocationKey>> byMaterial = new HashMap<>();
+        private final Map<String, Set<ShopLocationKey>> byNameGram = new HashMap<>();
+        private final Map<String, Set<ShopLocationKey>> byEnchantment = new HashMap<>();
+        private final Map<String, Set<ShopLocationKey>> byCustomItemId = new HashMap<>();
+        private final Set<ShopLocationKey> namedShops = new HashSet<>();
+
+        private void apply(PendingUpdate update) {
+            if (update.entry() == null) {
+                remove(update.key());
+            } else {
+                add(update.entry());
+            }
+        }
+
+        private void add(Entry entry) {
+            remove(entry.key());
+            entries.put(entry.key(), entry);
+            post(byMaterial, entry.material(), entry.key());
+            if (entry.displayName() != null) {
+                namedShops.add(entry.key());
+                for (String gram : nameGramsOf(entry.displayName())) {
+                    post(byNameGram, gram, entry.key());
+                }
+            }
+            for (String enchantment : entry.storedEnchantments()) {
+                post(byEnchantment, enchantment, entry.key());
+            }
+            if (entry.customItemId() != null) {
+                post(byCustomItemId, entry.customItemId(), entry.key());
+            }
+        }
+
+        private void remove(ShopLocationKey key) {
+            Entry entry = entries.remove(key);
+            if (entry == null) {
+                return;
+            }
+            unpost(byMaterial, entry.material(), key);
+            if (entry.displayName() != null) {
+                namedShops.remove(key);
+                for (String gram : nameGramsOf(entry.displayName())) {
+                    unpost(byNameGram, gram, key);
+                }
+            }
+            for (String enchantment : entry.storedEnchantments()) {
+                unpost(byEnchantment, enchantment, key);
+            }
+            if (entry.customItemId() != null) {
+                unpost(byCustomItemId, entry.customItemId(), key);
+            }
+        }
+
+        private static void post(Map<String, Set<ShopLocationKey>> postingsMap, String term, ShopLocationKey key) {
+            postingsMap.computeIfAbsent(term, t -> new HashSet<>()).add(key);
+        }
+
+        private static void unpost(Map<String, Set<ShopLocationKey>> postingsMap, String term, ShopLocationKey key) {
+            Set<ShopLocationKey> keys = postingsMap.get(term);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                postingsMap.remove(term);
+            }
+        }
+
+        /**
+         * Layout: header, world names, descriptors, then each postings map as terms with
+         * the ordinals of their descriptors.
+         */
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(INDEX_FILE_MAGIC);
+            out.writeInt(INDEX_FILE_VERSION);
+            out.writeBoolean(isExecutableItemsEnabled());
+
+            Map<Integer, Integer> worldOrdinals = new HashMap<>();
+            List<String> worldNames = new ArrayList<>();
+            Map<ShopLocationKey, Integer> entryOrdinals = new HashMap<>(entries.size() * 2);
+            for (ShopLocationKey key : entries.keySet()) {
+                if (!worldOrdinals.containsKey(key.worldId())) {
+                    worldOrdinals.put(key.worldId(), worldNames.size());
+                    worldNames.add(key.worldName());
+                }
+            }
+            out.writeInt(worldNames.size());
+            for (String worldName : worldNames) {
+                out.writeUTF(worldName);
+            }
+
+            out.writeInt(entries.size());
+            for (Entry entry : entries.values()) {
+                entryOrdinals.put(entry.key(), entryOrdinals.size());
+                out.writeInt(worldOrdinals.get(entry.key().worldId()));
+                out.writeLong(entry.key().blockPosition());
+                out.writeUTF(entry.material());
+                writeNullableUTF(out, entry.displayName());
+                out.writeShort(entry.storedEnchantments().size());
+                for (String enchantment : entry.storedEnchantments()) {
+                    out.writeUTF(enchantment);
+                }
+                writeNullableUTF(out, entry.customItemId());
+                out.writeInt(entry.itemFingerprint());
+            }
+
+            writePostings(out, byMaterial, entryOrdinals);
+            writePostings(out, byNameGram, entryOrdinals);
+            writePostings(out, byEnchantment, entryOrdinals);
+            writePostings(out, byCustomItemId, entryOrdinals);
+        }
+
+        /**
+         * Reads what {@link #writeTo(DataOutputStream)} wrote, after the header
+         */
+        private static Postings readFrom(DataInputStream in) throws IOException {
+            Postings postings = new Postings();
+            int worldCount = in.readInt();
+            int[] worldIds = new int[worldCount];
+            for (int i = 0; i < worldCount; i++) {
+                worldIds[i] = WorldNameDictionary.idOf(in.readUTF());
+            }
+
+            int entryCount = in.readInt();
+            ShopLocationKey[] keysByOrdinal = new ShopLocationKey[entryCount];
+            for (int i = 0; i < entryCount; i++) {
+                ShopLocationKey key = new ShopLocationKey(worldIds[in.readInt()], in.readLong());
+                String material = in.readUTF();
+                String displayName = readNullableUTF(in);
+                int enchantmentCount = in.readShort();
+                List<String> storedEnchantments = enchantmentCount == 0 ? List.of() : new ArrayList<>(enchantmentCount);
+                for (int j = 0; j < enchantmentCount; j++) {
+                    storedEnchantments.add(in.readUTF());
+                }
+                String customItemId = readNullableUTF(in);
+                Entry entry = new Entry(key, material, displayName, storedEnchantments, customItemId, in.readInt());
+                postings.entries.put(key, entry);
+                if (displayName != null) {
+                    postings.namedShops.add(key);
+                }
+                keysByOrdinal[i] = key;
+            }
+
+            readPostings(in, postings.byMaterial, keysByOrdinal);
+            readPostings(in, postings.byNameGram, keysByOrdinal);
+            readPostings(in, postings.byEnchantment, keysByOrdinal);
+            readPostings(in, postings.byCustomItemId, keysByOrdinal);
+            return postings;
+        }
+
+        private static void writePostings(DataOutputStream out, Map<String, Set<ShopLocationKey>> postingsMap,
+                                          Map<ShopLocationKey, Integer> entryOrdinals) throws IOException {
+            out.writeInt(postingsMap.size());
+            for (Map.Entry<String, Set<ShopLocationKey>> termPostings : postingsMap.entrySet()) {
+                out.writeUTF(termPostings.getKey());
+                out.writeInt(termPostings.getValue().size());
+                for (ShopLocationKey key : termPostings.getValue()) {
+                    out.writeInt(entryOrdinals.get(key));
+                }
+            }
+        }
+
+        private static void readPostings(DataInputStream in, Map<String, Set<ShopLocationKey>> postingsMap,
+                                         ShopLocationKey[] keysByOrdinal) throws IOException {
+            int termCount = in.readInt();
+            for (int i = 0; i < termCount; i++) {
+                String term = in.readUTF();
+                int keyCount = in.readInt();
+                Set<ShopLocationKey> keys = new HashSet<>(keyCount * 2);
+                for (int j = 0; j < keyCount; j++) {
+                    keys.add(keysByOrdinal[in.readInt()]);
+                }
+                postingsMap.put(term, keys);
+            }
+        }
+
+        private static void writeNullableUTF(DataOutputStream out, @Nullable String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        @Nullable
+        private static String readNullableUTF(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+    }
+}
@@ -31,10 +31,11 @@ public class Task15MinInterval implements Runnable {
     @Override
     public void run() {
         // v2.0.6.0 - Changed tasks to run in async thread
-        // v2.0.7.7 - Switched to virtual thread
+        // v2.0.7.7 - Switched to virtual thread, added visit rollups
         VirtualThreadScheduler.runTaskAsync(() -> {
-            WarpUtils.updateWarps();
+            WarpUtils.refreshWarps();
             ShopSearchActivityStorageUtil.syncShops();
+            ShopSearchActivityStorageUtil.rollupPlayerVisits();
         });
     }
 }
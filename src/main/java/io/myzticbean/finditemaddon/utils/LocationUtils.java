@@ -20,9 +20,12 @@ package io.myzticbean.finditemaddon.utils;
 
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.models.enums.PlayerPermsEnum;
+import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
 import io.myzticbean.finditemaddon.utils.log.Logger;
+import io.papermc.lib.PaperLib;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -31,7 +34,11 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * @author myzticbean
@@ -41,7 +48,19 @@ public class LocationUtils {
 
     private static final List<Material> damagingBlocks = new ArrayList<>();
     private static final List<Material> nonSuffocatingBlocks = new ArrayList<>();
-    private static final int BELOW_SAFE_BLOCK_CHECK_LIMIT = 20;
+    static final int BELOW_SAFE_BLOCK_CHECK_LIMIT = 20;
+    /** X/Z offsets of the four blocks next to the shop, where the shop sign can be */
+    private static final int[][] SIDE_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final Executor ASYNC_EXECUTOR = VirtualThreadScheduler::runTaskAsync;
+    private static final Executor MAIN_THREAD_EXECUTOR = task -> Bukkit.getScheduler().runTask(FindItemAddOn.getInstance(), task);
+
+    /**
+     * Block type at a position, from the world or from chunk snapshots
+     */
+    @FunctionalInterface
+    private interface BlockTypes {
+        Material at(int x, int y, int z);
+    }
 
     /**
      * Checks if the given material is any type of wall sign.
@@ -123,6 +142,141 @@ public class LocationUtils {
      */
     @Nullable
     public static Location findLocationAroundShop(Location shopLocation) {
+        return scanLocationAroundShop(shopLocation, loadedBlockTypes(shopLocation.getWorld()));
+    }
+
+    /**
+     * Same as {@link #findLocationAroundShop(Location)}, but never loads chunks on the main thread:
+     * if the chunks around the shop are not loaded, they are loaded asynchronously and scanned as
+     * snapshots off the main thread. Call from the main thread.
+     *
+     * @param shopLocation The location of the shop
+     * @return Completes on the main thread with a location to teleport to, or null if no valid location found.
+     * Already complete if the chunks around the shop are loaded.
+     */
+    public static CompletableFuture<Location> findLocationAroundShopAsync(Location shopLocation) {
+        if (areChunksAroundShopLoaded(shopLocation)) {
+            return CompletableFuture.completedFuture(findLocationAroundShop(shopLocation));
+        }
+        return snapshotChunksAroundShop(shopLocation)
+                .thenApplyAsync(blockTypes -> scanLocationAroundShop(shopLocation, blockTypes), ASYNC_EXECUTOR)
+                .whenCompleteAsync((location, error) -> {}, MAIN_THREAD_EXECUTOR);
+    }
+
+    @Nullable
+    public static Location findSafeLocationAroundShop(Location shopLocation, Player player) {
+        return scanSafeLocationAroundShop(shopLocation,
+                player.hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP_BYPASS_SAFETYCHECK.value()),
+                loadedBlockTypes(shopLocation.getWorld()));
+    }
+
+    /**
+     * Same as {@link #findSafeLocationAroundShop(Location, Player)}, but never loads chunks on the main thread:
+     * if the chunks around the shop are not loaded, they are loaded asynchronously and scanned as
+     * snapshots off the main thread. Call from the main thread.
+     *
+     * @return Completes on the main thread with a location to teleport to, or null if no safe location found.
+     * Already complete if the chunks around the shop are loaded.
+     */
+    public static CompletableFuture<Location> findSafeLocationAroundShopAsync(Location shopLocation, Player player) {
+        if (areChunksAroundShopLoaded(shopLocation)) {
+            return CompletableFuture.completedFuture(findSafeLocationAroundShop(shopLocation, player));
+        }
+        boolean canBypassSafetyCheck = player.hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP_BYPASS_SAFETYCHECK.value());
+        return snapshotChunksAroundShop(shopLocation)
+                .thenApplyAsync(blockTypes -> scanSafeLocationAroundShop(shopLocation, canBypassSafetyCheck, blockTypes), ASYNC_EXECUTOR)
+                .whenCompleteAsync((location, error) -> {}, MAIN_THREAD_EXECUTOR);
+    }
+
+    /**
+     * @return true if the chunks of the blocks next to the shop are loaded, so they can be scanned right away
+     */
+    private static boolean areChunksAroundShopLoaded(Location shopLocation) {
+        World world = shopLocation.getWorld();
+        for (int[] offset : SIDE_OFFSETS) {
+            if (!world.isChunkLoaded((shopLocation.getBlockX() + offset[0]) >> 4, (shopLocation.getBlockZ() + offset[1]) >> 4)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loads the chunks of the blocks next to the shop (the shop sign can be in a neighbouring chunk)
+     * without blocking, and takes a snapshot of each, without heightmap and biome data
+     */
+    private static CompletableFuture<BlockTypes> snapshotChunksAroundShop(Location shopLocation) {
+        World world = shopLocation.getWorld();
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+        Map<Long, CompletableFuture<ChunkSnapshot>> snapshotFutures = new HashMap<>();
+        for (int[] offset : SIDE_OFFSETS) {
+            int chunkX = (shopLocation.getBlockX() + offset[0]) >> 4;
+            int chunkZ = (shopLocation.getBlockZ() + offset[1]) >> 4;
+            snapshotFutures.computeIfAbsent(chunkKey(chunkX, chunkZ),
+                    k -> PaperLib.getChunkAtAsync(world, chunkX, chunkZ)
+                            .thenApply(chunk -> chunk.getChunkSnapshot(false, false, false)));
+        }
+        return CompletableFuture.allOf(snapshotFutures.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+            snapshotFutures.forEach((key, future) -> snapshots.put(key, future.join()));
+            return (x, y, z) -> {
+                if (y < minHeight || y >= maxHeight) {
+                    return Material.VOID_AIR;
+                }
+                ChunkSnapshot snapshot = snapshots.get(chunkKey(x >> 4, z >> 4));
+                return snapshot != null ? snapshot.getBlockType(x & 15, y, z & 15) : Material.AIR;
+            };
+        });
+    }
+
+    /**
+     * Checks a spot found by {@link #findLocationAroundShop(Location)} against the current blocks:
+     * the shop sign is still next to the shop above the spot, and the spot is still on the first ground
+     * below the sign. Call from the main thread, with the chunk of the spot loaded.
+     */
+    static boolean isSpotAroundShopValid(Location shopLocation, Location spot) {
+        World world = shopLocation.getWorld();
+        int spotX = spot.getBlockX();
+        int spotZ = spot.getBlockZ();
+        int shopY = shopLocation.getBlockY();
+        if (!isWallSign(world.getBlockAt(spotX, shopY, spotZ).getType())) {
+            return false;
+        }
+        for (int y = shopY - 1; y >= spot.getBlockY(); y--) {
+            if (!isNotGround(world.getBlockAt(spotX, y, spotZ).getType())) {
+                return false;
+            }
+        }
+        return !isNotGround(world.getBlockAt(spotX, spot.getBlockY() - 1, spotZ).getType());
+    }
+
+    /**
+     * @return true if the block is skipped when looking for ground to stand on below the shop sign
+     */
+    private static boolean isNotGround(Material blockType) {
+        return blockType.equals(Material.AIR)
+                || blockType.equals(Material.CAVE_AIR)
+                || blockType.equals(Material.VOID_AIR)
+                || isWallSign(blockType)
+                || blockType.equals(Material.CHEST)
+                || blockType.equals(Material.TRAPPED_CHEST);
+    }
+
+    private static BlockTypes loadedBlockTypes(World world) {
+        return (x, y, z) -> world.getBlockAt(x, y, z).getType();
+    }
+
+    private static Material typeAt(BlockTypes blockTypes, Location location) {
+        return blockTypes.at(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Nullable
+    private static Location scanLocationAroundShop(Location shopLocation, BlockTypes blockTypes) {
         Location roundedShopLoc = getRoundedDestination(shopLocation);
         Logger.logDebugInfo("Rounded location: " + roundedShopLoc.getX() + ", " + roundedShopLoc.getY() + ", " + roundedShopLoc.getZ());
         // Creating a list of four block locations in 4 sides of the shop
@@ -153,7 +307,7 @@ public class LocationUtils {
         ));
         for (Location loc_i : possibleLocList) {
             Logger.logDebugInfo("Possible location: " + loc_i.getX() + ", " + loc_i.getY() + ", " + loc_i.getZ());
-            if (isWallSign(loc_i.getBlock().getType())) {
+            if (isWallSign(typeAt(blockTypes, loc_i))) {
                 Logger.logDebugInfo("Shop sign block found at " + loc_i.getX() + ", " + loc_i.getY() + ", " + loc_i.getZ());
                 // Find a block below to stand on (same logic as safe version, but without safety checks)
                 Location blockBelow = null;
@@ -166,14 +320,9 @@ public class LocationUtils {
                             loc_i.getBlockZ()
                     );
                     Logger.logDebugInfo("Block below shop sign: "
-                            + blockBelow.getBlock().getType() + " " + blockBelow.getX() + ", " + blockBelow.getY() + ", " + blockBelow.getZ());
-                    Material blockType = blockBelow.getBlock().getType();
-                    if (blockType.equals(Material.AIR)
-                            || blockType.equals(Material.CAVE_AIR)
-                            || blockType.equals(Material.VOID_AIR)
-                            || isWallSign(blockType)
-                            || blockType.equals(Material.CHEST)
-                            || blockType.equals(Material.TRAPPED_CHEST)) {
+                            + typeAt(blockTypes, blockBelow) + " " + blockBelow.getX() + ", " + blockBelow.getY() + ", " + blockBelow.getZ());
+                    Material blockType = typeAt(blockTypes, blockBelow);
+                    if (isNotGround(blockType)) {
                         // Continue searching - these are not valid ground blocks
                         Logger.logDebugInfo("Air, sign, or chest found below - continuing search");
                     } else {
@@ -193,7 +342,7 @@ public class LocationUtils {
                     return loc_i;
                 }
             } else {
-                Logger.logDebugInfo("Block not shop sign. Block type: " + loc_i.getBlock().getType());
+                Logger.logDebugInfo("Block not shop sign. Block type: " + typeAt(blockTypes, loc_i));
             }
         }
         Logger.logDebugInfo("No valid location found near shop");
@@ -201,7 +350,7 @@ public class LocationUtils {
     }
 
     @Nullable
-    public static Location findSafeLocationAroundShop(Location shopLocation, Player player) {
+    private static Location scanSafeLocationAroundShop(Location shopLocation, boolean canBypassSafetyCheck, BlockTypes blockTypes) {
         Location roundedShopLoc = getRoundedDestination(shopLocation);
         Logger.logDebugInfo("Rounded location: " + roundedShopLoc.getX() + ", " + roundedShopLoc.getY() + ", " + roundedShopLoc.getZ());
         // Creating a list of four block locations in 4 sides of the shop
@@ -232,10 +381,10 @@ public class LocationUtils {
         ));
         for(Location loc_i : possibleSafeLocList) {
             Logger.logDebugInfo("Possible safe location: " + loc_i.getX() + ", " + loc_i.getY() + ", " + loc_i.getZ());
-            if(isWallSign(loc_i.getBlock().getType())) {
+            if(isWallSign(typeAt(blockTypes, loc_i))) {
                 Logger.logDebugInfo("Shop sign block found at " + loc_i.getX() + ", " + loc_i.getY() + ", " + loc_i.getZ());
                 // Adding a check for a safe location check bypass permission
-                if(player.hasPermission(PlayerPermsEnum.FINDITEM_SHOPTP_BYPASS_SAFETYCHECK.value())) {
+                if(canBypassSafetyCheck) {
                     Location blockBelow = new Location(
                             loc_i.getWorld(),
                             loc_i.getBlockX(),
@@ -258,7 +407,7 @@ public class LocationUtils {
                         loc_i.getBlockZ());
                 Logger.logDebugInfo("Block above shop sign: "
                         + blockAbove.getX() + ", " + blockAbove.getY() + ", " + blockAbove.getZ());
-                if(!isBlockSuffocating(blockAbove)) {
+                if(!isBlockSuffocating(typeAt(blockTypes, blockAbove))) {
                     Location blockBelow = null;
                     boolean safeLocFound = false;
                     for(int i = 1; i <= BELOW_SAFE_BLOCK_CHECK_LIMIT; i++) {
@@ -269,15 +418,15 @@ public class LocationUtils {
                                 loc_i.getBlockZ()
                         );
                         Logger.logDebugInfo("Block below shop sign: "
-                                + blockBelow.getBlock().getType() + " " + blockBelow.getX() + ", " + blockBelow.getY() + ", " + blockBelow.getZ());
-                        if(blockBelow.getBlock().getType().equals(Material.AIR)
-                            || blockBelow.getBlock().getType().equals(Material.CAVE_AIR)
-                            || blockBelow.getBlock().getType().equals(Material.VOID_AIR)
-                            || isWallSign(blockBelow.getBlock().getType())) {
+                                + typeAt(blockTypes, blockBelow) + " " + blockBelow.getX() + ", " + blockBelow.getY() + ", " + blockBelow.getZ());
+                        if(typeAt(blockTypes, blockBelow).equals(Material.AIR)
+                            || typeAt(blockTypes, blockBelow).equals(Material.CAVE_AIR)
+                            || typeAt(blockTypes, blockBelow).equals(Material.VOID_AIR)
+                            || isWallSign(typeAt(blockTypes, blockBelow))) {
                             // do nothing and let the loop run
                             Logger.logDebugInfo("Shop or Air found below");
                         }
-                        else if(!isBlockDamaging(blockBelow)) {
+                        else if(!isBlockDamaging(typeAt(blockTypes, blockBelow))) {
                             Logger.logDebugInfo("Safe block found!");
                             safeLocFound = true;
                             break;
@@ -300,12 +449,12 @@ public class LocationUtils {
                     }
                 }
                 else {
-                    Logger.logDebugInfo("Block above shop sign found not air. Block type: " + blockAbove.getBlock().getType());
+                    Logger.logDebugInfo("Block above shop sign found not air. Block type: " + typeAt(blockTypes, blockAbove));
                     return null;
                 }
             }
             else {
-                Logger.logDebugInfo("Block not shop sign. Block type: " + loc_i.getBlock().getType());
+                Logger.logDebugInfo("Block not shop sign. Block type: " + typeAt(blockTypes, loc_i));
             }
         }
         Logger.logDebugInfo("No safe block found near shop");
@@ -348,12 +497,12 @@ public class LocationUtils {
         return loc;
     }
 
-    private static boolean isBlockDamaging(Location loc) {
-        return damagingBlocks.contains(loc.getBlock().getType());
+    private static boolean isBlockDamaging(Material blockType) {
+        return damagingBlocks.contains(blockType);
     }
 
-    private static boolean isBlockSuffocating(Location loc) {
-        return !nonSuffocatingBlocks.contains(loc.getBlock().getType());
+    private static boolean isBlockSuffocating(Material blockType) {
+        return !nonSuffocatingBlocks.contains(blockType);
     }
 
     private static Location getRoundedDestination(final Location loc) {
@@ -0,0 +1,129 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils;
+
+import io.myzticbean.finditemaddon.models.ShopSearchActivityModel;
+import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
+import io.myzticbean.finditemaddon.utils.json.ShopSearchActivityStorageUtil;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * LRU cache of shop owner names, so that rendering {@code {SHOP_OWNER}} never has to look up
+ * offline players (which can read the usercache or player data from disk).
+ * <p>
+ * Warmed up from the stored shop owners at startup and updated on player join. Names that are not
+ * cached yet are looked up in the background, and the listener set with {@link #setOwnerNameResolvedListener}
+ * is told once they are found, so icons rendered without the name can be updated.
+ * @author myzticbean
+ */
+@UtilityClass
+public class ShopOwnerNameCache {
+
+    private static final int MAX_CACHED_NAMES = 10_000;
+    /** Cached for owners that have no name (e.g. admin shops) */
+    private static final String NO_NAME = "";
+
+    private static final Map<UUID, String> ownerNames = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+            return size() > MAX_CACHED_NAMES;
+        }
+    };
+    private static final Set<UUID> pendingLookups = ConcurrentHashMap.newKeySet();
+    private static volatile Consumer<UUID> ownerNameResolvedListener = ownerUUID -> {};
+
+    /**
+     * Returns the cached name of the owner without any lookup. If the name is not cached,
+     * it is looked up in the background and null is returned.
+     * @return Owner name, empty if the owner has no name, or null if it is not known yet
+     */
+    @Nullable
+    public static String getOwnerName(UUID ownerUUID) {
+        String name;
+        synchronized (ownerNames) {
+            name = ownerNames.get(ownerUUID);
+        }
+        if (name == null) {
+            lookupAsync(ownerUUID);
+        }
+        return name;
+    }
+
+    public static void putOwnerName(UUID ownerUUID, @Nullable String name) {
+        synchronized (ownerNames) {
+            ownerNames.put(ownerUUID, name != null ? name : NO_NAME);
+        }
+    }
+
+    /**
+     * @param listener Called (off the main thread) with the owner UUID after a background lookup
+     *                 of a name that was not cached
+     */
+    public static void setOwnerNameResolvedListener(Consumer<UUID> listener) {
+        ownerNameResolvedListener = listener;
+    }
+
+    /**
+     * Looks up the names of all stored shop owners in the background, once shops are loaded from file
+     */
+    public static void warmUpAsync() {
+        VirtualThreadScheduler.runTaskAsync(() -> {
+            if (!ShopSearchActivityStorageUtil.awaitShopsLoaded()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int count = 0;
+            for (ShopSearchActivityModel shop : ShopSearchActivityStorageUtil.getGlobalShopsList()) {
+                UUID ownerUUID = shop.getShopOwnerUUID();
+                boolean isCached;
+                synchronized (ownerNames) {
+                    isCached = ownerNames.containsKey(ownerUUID);
+                }
+                if (!isCached) {
+                    putOwnerName(ownerUUID, Bukkit.getOfflinePlayer(ownerUUID).getName());
+                    count++;
+                }
+            }
+            Logger.logDebugInfo("Cached " + count + " shop owner names. Time took: " + (System.currentTimeMillis() - start) + "ms.");
+        });
+    }
+
+    private static void lookupAsync(UUID ownerUUID) {
+        if (pendingLookups.add(ownerUUID)) {
+            VirtualThreadScheduler.runTaskAsync(() -> {
+                try {
+                    putOwnerName(ownerUUID, Bukkit.getOfflinePlayer(ownerUUID).getName());
+                    ownerNameResolvedListener.accept(ownerUUID);
+                } finally {
+                    pendingLookups.remove(ownerUUID);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils;
+
+import io.myzticbean.finditemaddon.models.ChunkKey;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spot next to each shop that players are teleported to, found by {@link LocationUtils#findLocationAroundShopAsync(Location)}
+ * and reused until a block is placed, broken, blown up or moved by a piston where the scan looks (the sides of the
+ * shop, from above it down to the ground check limit), or the world is unloaded. Spots are found in the background
+ * when a shop is created, and when a shop is clicked.
+ * <p>
+ * Blocks can also change without an event (WorldEdit, fluids, ...), so a cached spot is checked again on click if its
+ * chunk is loaded. Shops without a spot are not cached, so they are scanned again on every click.
+ * <p>
+ * Main thread only, except for reads.
+ * @author myzticbean
+ */
+@UtilityClass
+public class ShopTeleportSpotCache {
+
+    /** Blocks above the shop that the scan looks at */
+    private static final int SCANNED_BLOCKS_ABOVE = 1;
+    /** Blocks below the shop that the scan looks at */
+    private static final int SCANNED_BLOCKS_BELOW = LocationUtils.BELOW_SAFE_BLOCK_CHECK_LIMIT;
+
+    private static final Map<ShopLocationKey, Location> spots = new ConcurrentHashMap<>();
+    /** Shops with a cached spot, by chunk, to find the shops next to a changed block */
+    private static final Map<ChunkKey, Set<ShopLocationKey>> cachedShopsByChunk = new ConcurrentHashMap<>();
+    private static final Set<ShopLocationKey> pendingShops = ConcurrentHashMap.newKeySet();
+    /** Bumped on every invalidation, so spots found while blocks changed are not cached */
+    private static final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @return Completes on the main thread with the spot to teleport to, or null if there is none.
+     * Already complete if the spot is cached or the chunks around the shop are loaded.
+     */
+    public static CompletableFuture<Location> getSpotAsync(Location shopLocation) {
+        ShopLocationKey shopLocationKey = ShopLocationKey.of(shopLocation);
+        Location cachedSpot = spots.get(shopLocationKey);
+        if (cachedSpot != null) {
+            World world = shopLocation.getWorld();
+            if (!world.isChunkLoaded(cachedSpot.getBlockX() >> 4, cachedSpot.getBlockZ() >> 4)
+                    || LocationUtils.isSpotAroundShopValid(shopLocation, cachedSpot)) {
+                return CompletableFuture.completedFuture(cachedSpot.clone());
+            }
+            invalidateShop(shopLocation);
+        }
+        return findSpot(shopLocationKey, shopLocation);
+    }
+
+    /**
+     * Finds the spot of a shop in the background
+     */
+    public static void precompute(Location shopLocation) {
+        ShopLocationKey shopLocationKey = ShopLocationKey.of(shopLocation);
+        if (!spots.containsKey(shopLocationKey) && !pendingShops.contains(shopLocationKey)) {
+            findSpot(shopLocationKey, shopLocation);
+        }
+    }
+
+    private static CompletableFuture<Location> findSpot(ShopLocationKey shopLocationKey, Location shopLocation) {
+        pendingShops.add(shopLocationKey);
+        long invalidationCountAtStart = invalidationCount.get();
+        return LocationUtils.findLocationAroundShopAsync(shopLocation).whenComplete((location, error) -> {
+            pendingShops.remove(shopLocationKey);
+            if (error == null && location != null && invalidationCount.get() == invalidationCountAtStart) {
+                spots.put(shopLocationKey, location.clone());
+                cachedShopsByChunk.computeIfAbsent(ChunkKey.of(shopLocationKey), k -> ConcurrentHashMap.newKeySet())
+                        .add(shopLocationKey);
+            }
+        });
+    }
+
+    /**
+     * Drops the spots of the shops whose scan looks at the changed block
+     */
+    public static void blockChanged(Block block) {
+        if (spots.isEmpty()) {
+            return;
+        }
+        int worldId = WorldNameDictionary.idOf(block.getWorld().getName());
+        // the scan looks at the blocks on the four sides of the shop, so the shop is at most one block away
+        Set<ChunkKey> chunkKeys = new HashSet<>(4);
+        for (int dx = -1; dx <= 1; dx += 2) {
+            for (int dz = -1; dz <= 1; dz += 2) {
+                chunkKeys.add(ChunkKey.ofBlock(worldId, block.getX() + dx, block.getZ() + dz));
+            }
+        }
+        for (ChunkKey chunkKey : chunkKeys) {
+            Set<ShopLocationKey> cachedShops = cachedShopsByChunk.get(chunkKey);
+            if (cachedShops == null) {
+                continue;
+            }
+            cachedShops.removeIf(shopLocationKey -> {
+                if (!isNextToShop(shopLocationKey, block)
+                        || block.getY() > shopLocationKey.blockY() + SCANNED_BLOCKS_ABOVE
+                        || block.getY() < shopLocationKey.blockY() - SCANNED_BLOCKS_BELOW) {
+                    return false;
+                }
+                spots.remove(shopLocationKey);
+                invalidationCount.incrementAndGet();
+                return true;
+            });
+        }
+        invalidatePendingSpots(worldId, block);
+    }
+
+    /**
+     * Spots still being found may have scanned the block before it changed
+     */
+    private static void invalidatePendingSpots(int worldId, Block block) {
+        if (pendingShops.isEmpty()) {
+            return;
+        }
+        for (ShopLocationKey shopLocationKey : pendingShops) {
+            if (shopLocationKey.worldId() == worldId && isNextToShop(shopLocationKey, block)) {
+                invalidationCount.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the block is in one of the four columns on the sides of the shop
+     */
+    private static boolean isNextToShop(ShopLocationKey shopLocationKey, Block block) {
+        return Math.abs(shopLocationKey.blockX() - block.getX()) + Math.abs(shopLocationKey.blockZ() - block.getZ()) == 1;
+    }
+
+    /**
+     * Drops the spots in the world, as they hold a reference to it
+     */
+    public static void worldUnloaded(World world) {
+        int worldId = WorldNameDictionary.idOf(world.getName());
+        spots.keySet().removeIf(shopLocationKey -> shopLocationKey.worldId() == worldId);
+        cachedShopsByChunk.keySet().removeIf(chunkKey -> chunkKey.worldId() == worldId);
+        invalidationCount.incrementAndGet();
+    }
+
+    public static void invalidateShop(Location shopLocation) {
+        ShopLocationKey shopLocationKey = ShopLocationKey.of(shopLocation);
+        if (spots.remove(shopLocationKey) != null) {
+            Set<ShopLocationKey> cachedShops = cachedShopsByChunk.get(ChunkKey.of(shopLocationKey));
+            if (cachedShops != null) {
+                cachedShops.remove(shopLocationKey);
+            }
+        }
+        invalidationCount.incrementAndGet();
+    }
+}
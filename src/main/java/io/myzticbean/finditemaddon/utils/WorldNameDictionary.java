@@ -0,0 +1,63 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns world names into small integer ids, so that stored shops don't each carry a copy of their world name.
+ * World names are matched ignoring case, the first spelling seen is the one kept.
+ * @author myzticbean
+ */
+@UtilityClass
+public class WorldNameDictionary {
+
+    private static final Map<String, Integer> worldIdsByName = new ConcurrentHashMap<>();
+    private static volatile String[] worldNames = new String[0];
+
+    public static int idOf(String worldName) {
+        String lookupName = worldName == null ? "" : worldName.toLowerCase(Locale.ROOT);
+        Integer worldId = worldIdsByName.get(lookupName);
+        if(worldId != null) {
+            return worldId;
+        }
+        return register(lookupName, worldName == null ? "" : worldName);
+    }
+
+    public static String nameOf(int worldId) {
+        return worldNames[worldId];
+    }
+
+    private static synchronized int register(String lookupName, String worldName) {
+        Integer worldId = worldIdsByName.get(lookupName);
+        if(worldId != null) {
+            return worldId;
+        }
+        String[] names = Arrays.copyOf(worldNames, worldNames.length + 1);
+        names[names.length - 1] = worldName;
+        worldNames = names;
+        worldIdsByName.put(lookupName, names.length - 1);
+        return names.length - 1;
+    }
+}
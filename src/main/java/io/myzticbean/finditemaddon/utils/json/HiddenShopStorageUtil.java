@@ -39,7 +39,6 @@ import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -57,24 +56,8 @@ public class HiddenShopStorageUtil {
      */
     @Deprecated(since = "v2.0.7.7")
     public static void handleShopSearchVisibilityAsync(Shop shop, boolean hideShop) {
-        Bukkit.getScheduler().runTaskAsynchronously(FindItemAddOn.getInstance(), () -> {
-            Iterator<ShopSearchActivityModel> shopSearchActivityIterator = ShopSearchActivityStorageUtil.getGlobalShopsList().iterator();
-            int i = 0;
-            while(shopSearchActivityIterator.hasNext()) {
-                ShopSearchActivityModel shopSearchActivity = shopSearchActivityIterator.next();
-                Location shopLocation = shop.getLocation();
-                if(shopSearchActivity.compareWith(
-                        shopLocation.getWorld().getName(),
-                        shopLocation.getX(),
-                        shopLocation.getY(),
-                        shopLocation.getZ()
-                )) {
-                    ShopSearchActivityStorageUtil.getGlobalShopsList().get(i).setHiddenFromSearch(hideShop);
-                    break;
-                }
-                i++;
-            }
-        });
+        Bukkit.getScheduler().runTaskAsynchronously(FindItemAddOn.getInstance(),
+                () -> setShopHiddenFromSearch(shop.getLocation(), hideShop));
     }
 
     /**
@@ -82,26 +65,13 @@ public class HiddenShopStorageUtil {
      * @param shop
      */
     public static void handleShopSearchVisibilityAsync(com.ghostchu.quickshop.api.shop.Shop shop, boolean hideShop) {
-        VirtualThreadScheduler.runTaskAsync(() -> {
-            Iterator<ShopSearchActivityModel> shopSearchActivityIterator = ShopSearchActivityStorageUtil.getGlobalShopsList().iterator();
-            int i = 0;
-            while(shopSearchActivityIterator.hasNext()) {
-                ShopSearchActivityModel shopSearchActivity = shopSearchActivityIterator.next();
-                Location shopLocation = shop.getLocation();
-                if(shopSearchActivity.compareWith(
-                        shopLocation.getWorld().getName(),
-                        shopLocation.getX(),
-                        shopLocation.getY(),
-                        shopLocation.getZ()
-                )) {
-                    ShopSearchActivityStorageUtil.getGlobalShopsList()
-                            .get(i)
-                            .setHiddenFromSearch(hideShop);
-                    break;
-                }
-                i++;
-            }
-        });
+        VirtualThreadScheduler.runTaskAsync(() -> setShopHiddenFromSearch(shop.getLocation(), hideShop));
+    }
+
+    private static void setShopHiddenFromSearch(Location shopLocation, boolean hideShop) {
+        if(ShopSearchActivityStorageUtil.awaitShopsLoaded()) {
+            ShopSearchActivityStorageUtil.setShopHiddenFromSearch(shopLocation, hideShop);
+        }
     }
 
     /**
@@ -110,23 +80,7 @@ public class HiddenShopStorageUtil {
      * @return
      */
     public static boolean isShopHidden(Shop shop) {
-        for(ShopSearchActivityModel shopSearchActivity : ShopSearchActivityStorageUtil.getGlobalShopsList()) {
-            Location shopLocation = shop.getLocation();
-            if(shopSearchActivity.compareWith(
-                    shopLocation.getWorld().getName(),
-                    shopLocation.getX(),
-                    shopLocation.getY(),
-                    shopLocation.getZ()
-            )) {
-                if(shopSearchActivity.isHiddenFromSearch()) {
-                    return true;
-                }
-                else {
-                    return false;
-                }
-            }
-        }
-        return false;
+        return isShopHidden(shop.getLocation());
     }
 
     /**
@@ -135,23 +89,12 @@ public class HiddenShopStorageUtil {
      * @return
      */
     public static boolean isShopHidden(com.ghostchu.quickshop.api.shop.Shop shop) {
-        for(ShopSearchActivityModel shopSearchActivity : ShopSearchActivityStorageUtil.getGlobalShopsList()) {
-            Location shopLocation = shop.getLocation();
-            if(shopSearchActivity.compareWith(
-                    shopLocation.getWorld().getName(),
-                    shopLocation.getX(),
-                    shopLocation.getY(),
-                    shopLocation.getZ()
-            )) {
-                if(shopSearchActivity.isHiddenFromSearch()) {
-                    return true;
-                }
-                else {
-                    return false;
-                }
-            }
-        }
-        return false;
+        return isShopHidden(shop.getLocation());
+    }
+
+    private static boolean isShopHidden(Location shopLocation) {
+        ShopSearchActivityModel shopSearchActivity = ShopSearchActivityStorageUtil.getShopSearchActivity(shopLocation);
+        return shopSearchActivity != null && shopSearchActivity.isHiddenFromSearch();
     }
 
     public static void loadHiddenShopsFromFile() {
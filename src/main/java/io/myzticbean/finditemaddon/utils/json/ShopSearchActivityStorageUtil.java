@@ -20,10 +20,15 @@ package io.myzticbean.finditemaddon.utils.json;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.myzticbean.finditemaddon.FindItemAddOn;
 import io.myzticbean.finditemaddon.models.HiddenShopModel;
 import io.myzticbean.finditemaddon.models.PlayerShopVisitModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
 import io.myzticbean.finditemaddon.models.ShopSearchActivityModel;
+import io.myzticbean.finditemaddon.quickshop.impl.QSHikariAPIHandler;
 import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
 import io.myzticbean.finditemaddon.utils.log.Logger;
 import lombok.Getter;
@@ -31,88 +36,146 @@ import me.kodysimpson.simpapi.colors.ColorTranslator;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nullable;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
+ * Stores shop search activity (player visits, hidden state) for all shops.
+ * <p>
+ * Reads go to a concurrent map without locking and changes are queued to a single writer,
+ * see {@link ShopSearchActivityStore}.
  * @author myzticbean
  */
 public class ShopSearchActivityStorageUtil {
 
     private static final String SHOP_SEARCH_ACTIVITY_JSON_FILE_NAME = "shops.json";
+    private static final long SHOPS_LOAD_WAIT_TIMEOUT_IN_SECONDS = 60;
+    private static final int SHOPS_LOAD_CHUNK_SIZE = 1024;
+    private static final Type SHOPS_LIST_TYPE = new TypeToken<Collection<ShopSearchActivityModel>>() {}.getType();
 
     @Getter
     private static final Map<String, Long> cooldowns = new HashMap<>();
 
-    @Getter
-    private static List<ShopSearchActivityModel> globalShopsList = new ArrayList<>();
+    /**
+     * Completed once shops.json has been read and synced with QuickShop
+     */
+    private static volatile CompletableFuture<Void> shopsLoaded = new CompletableFuture<>();
+
+    /**
+     * Set when shops.json could not be parsed, so that it is not overwritten on shutdown
+     */
+    private static volatile boolean shopsFileLoadFailed = false;
 
     /**
      * Returns true if cooldown is not present
-     * @param player
+     * @param shopSearchActivity
+     * @param playerUUID
+     * @param playerName
      * @return
      */
-    private static boolean handleCooldownIfPresent(Location shopLocation, Player player) {
+    private static boolean handleCooldownIfPresent(ShopSearchActivityModel shopSearchActivity, UUID playerUUID, String playerName) {
+        Instant lastVisit = null;
+        for(PlayerShopVisitModel playerShopVisit : shopSearchActivity.getPlayerVisitList()) {
+            if(playerShopVisit.isVisitedBy(playerUUID)
+                    && (lastVisit == null || playerShopVisit.getVisitDateTime().isAfter(lastVisit))) {
+                lastVisit = playerShopVisit.getVisitDateTime();
+            }
+        }
+        boolean isCooldownTimeElapsed = lastVisit == null
+                || Instant.now().minusSeconds(FindItemAddOn.getConfigProvider().SHOP_PLAYER_VISIT_COOLDOWN_IN_MINUTES * 60L).isAfter(lastVisit);
+        if(isCooldownTimeElapsed) {
+            Logger.logDebugInfo(ColorTranslator.translateColorCodes("&6" + playerName + " is out of cooldown"));
+        }
+        else {
+            Logger.logDebugInfo(ColorTranslator.translateColorCodes("&6" + playerName + " still has cooldown"));
+        }
+        return isCooldownTimeElapsed;
+    }
 
-        // New logic
-        for(ShopSearchActivityModel shopSearchActivity : globalShopsList) {
-            if(shopSearchActivity.compareWith(
-                    shopLocation.getWorld().getName(),
-                    shopLocation.getX(),
-                    shopLocation.getY(),
-                    shopLocation.getZ()
-            )) {
-                List<PlayerShopVisitModel> playerShopVisitList = shopSearchActivity.getPlayerVisitList()
-                        .stream()
-                        .filter(p -> p.getPlayerUUID().equals(player.getUniqueId()))
-                        .sorted(Comparator.comparing(PlayerShopVisitModel::getVisitDateTime))
-                        .collect(Collectors.toCollection(ArrayList::new));
+    /**
+     * @return Read-only live view of all stored shops
+     */
+    public static Collection<ShopSearchActivityModel> getGlobalShopsList() {
+        return ShopSearchActivityStore.shops();
+    }
 
-                boolean isCooldownTimeElapsed;
-                if(playerShopVisitList.size() > 0) {
-                    isCooldownTimeElapsed = Instant.now().minusSeconds(
-                            FindItemAddOn.getConfigProvider().SHOP_PLAYER_VISIT_COOLDOWN_IN_MINUTES * 60)
-                            .isAfter(playerShopVisitList.get(playerShopVisitList.size() - 1).getVisitDateTime());
-                }
-                else {
-                    isCooldownTimeElapsed = true;
-                }
-                if(isCooldownTimeElapsed) {
-                    Logger.logDebugInfo(ColorTranslator.translateColorCodes("&6" + player.getName() + " is out of cooldown"));
-                    return true;
-                }
-                else {
-                    Logger.logDebugInfo(ColorTranslator.translateColorCodes("&6" + player.getName() + " still has cooldown"));
-                    return false;
-                }
-            }
+    /**
+     * Looks up the stored shop activity for a shop location.
+     * The returned model is shared and must not be modified.
+     * @param shopLocation Shop location
+     * @return Shop activity, or null if the shop is not stored
+     */
+    @Nullable
+    public static ShopSearchActivityModel getShopSearchActivity(Location shopLocation) {
+        ShopLocationKey locationKey = toLocationKey(shopLocation);
+        return locationKey != null ? ShopSearchActivityStore.get(locationKey) : null;
+    }
+
+    @Nullable
+    private static ShopLocationKey toLocationKey(Location shopLocation) {
+        if(shopLocation == null || shopLocation.getWorld() == null) {
+            return null;
+        }
+        return ShopLocationKey.of(shopLocation);
+    }
+
+    /**
+     * @return true once shops.json has been loaded and synced with QuickShop
+     */
+    public static boolean isShopsLoaded() {
+        return shopsLoaded.isDone();
+    }
+
+    /**
+     * Blocks the calling thread until shops.json has been loaded. Never call this from the main thread.
+     * @return true if shops are loaded, false if it timed out
+     */
+    public static boolean awaitShopsLoaded() {
+        try {
+            shopsLoaded.get(SHOPS_LOAD_WAIT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Logger.logWarning("Timed out waiting for shops to load from file");
         }
-        Logger.logDebugInfo(ColorTranslator.translateColorCodes("&6Shop not found, returning false for cooldown check"));
         return false;
     }
 
     public static void syncShops() {
-        globalShopsList = FindItemAddOn.getQsApiInstance().syncShopsListForStorage(globalShopsList);
+        if(!isShopsLoaded()) {
+            Logger.logDebugInfo("Shops not loaded from file yet, skipping sync");
+            return;
+        }
+        ShopSearchActivityStore.submit(ShopSearchActivityStorageUtil::syncShopsWithQuickShop);
+    }
+
+    private static void syncShopsWithQuickShop(Map<ShopLocationKey, ShopSearchActivityModel> shops) {
+        List<ShopSearchActivityModel> syncedShops = FindItemAddOn.getQsApiInstance().syncShopsListForStorage(new ArrayList<>(shops.values()));
+        ShopSearchActivityStore.replaceAll(shops, syncedShops);
     }
 
     /**
@@ -120,28 +183,8 @@ public class ShopSearchActivityStorageUtil {
      * @param shop
      */
     public void addShop(org.maxgamer.quickshop.api.shop.Shop shop) {
-        for(ShopSearchActivityModel shop_i : globalShopsList) {
-            if(shop_i.getX() == shop.getLocation().getX()
-                && shop_i.getY() == shop.getLocation().getY()
-                && shop_i.getZ() == shop.getLocation().getZ()
-                && shop_i.getWorldName().equalsIgnoreCase(shop.getLocation().getWorld().getName())
-            ) {
-
-                break;
-            }
-        }
-        ShopSearchActivityModel shopModel = new ShopSearchActivityModel(
-                shop.getLocation().getWorld().getName(),
-                shop.getLocation().getX(),
-                shop.getLocation().getY(),
-                shop.getLocation().getZ(),
-                shop.getLocation().getPitch(),
-                shop.getLocation().getYaw(),
-                shop.getOwner().toString(),
-                new ArrayList<>(),
-                false
-        );
-        globalShopsList.add(shopModel);
+        ShopSearchActivityModel shopModel = new ShopSearchActivityModel(shop.getLocation(), shop.getOwner());
+        ShopSearchActivityStore.submit(shops -> shops.put(shopModel.getLocationKey(), shopModel));
     }
 
     /**
@@ -149,18 +192,8 @@ public class ShopSearchActivityStorageUtil {
      * @param shop
      */
     public static void addShop(com.ghostchu.quickshop.api.shop.Shop shop) {
-        ShopSearchActivityModel shopModel = new ShopSearchActivityModel(
-                shop.getLocation().getWorld().getName(),
-                shop.getLocation().getX(),
-                shop.getLocation().getY(),
-                shop.getLocation().getZ(),
-                shop.getLocation().getPitch(),
-                shop.getLocation().getYaw(),
-                shop.getOwner().toString(),
-                new ArrayList<>(),
-                false
-        );
-        globalShopsList.add(shopModel);
+        ShopSearchActivityModel shopModel = new ShopSearchActivityModel(shop.getLocation(), QSHikariAPIHandler.convertQUserToUUID(shop.getOwner()));
+        ShopSearchActivityStore.submit(shops -> shops.put(shopModel.getLocationKey(), shopModel));
     }
 
     /**
@@ -168,50 +201,107 @@ public class ShopSearchActivityStorageUtil {
      * @param shop
      */
     public static void removeShop(com.ghostchu.quickshop.api.shop.Shop shop) {
-        Iterator<ShopSearchActivityModel> shopSearchActivityIterator = globalShopsList.iterator();
-        while(shopSearchActivityIterator.hasNext()) {
-            ShopSearchActivityModel shopSearchActivity = shopSearchActivityIterator.next();
-            if(shopSearchActivity.compareWith(
-                    shop.getLocation().getWorld().getName(),
-                    shop.getLocation().getX(),
-                    shop.getLocation().getY(),
-                    shop.getLocation().getZ()
-            )) {
-                shopSearchActivityIterator.remove();
-                return;
-            }
+        ShopLocationKey locationKey = toLocationKey(shop.getLocation());
+        if(locationKey != null) {
+            ShopSearchActivityStore.submit(shops -> shops.remove(locationKey));
         }
     }
 
-    public static void loadShopsFromFile() {
-        Gson gson = new GsonBuilder().create();
-        File file = new File(FindItemAddOn.getInstance().getDataFolder().getAbsolutePath() + "/" + SHOP_SEARCH_ACTIVITY_JSON_FILE_NAME);
-        if(file.exists()) {
+    /**
+     * Hides or reveals a shop in search results
+     * @param shopLocation Shop location
+     * @param hideShop true to hide the shop
+     */
+    static void setShopHiddenFromSearch(Location shopLocation, boolean hideShop) {
+        ShopLocationKey locationKey = toLocationKey(shopLocation);
+        if(locationKey == null) {
+            return;
+        }
+        ShopSearchActivityStore.submit(shops -> {
+            ShopSearchActivityModel shopSearchActivity = shops.get(locationKey);
+            if(shopSearchActivity != null && shopSearchActivity.isHiddenFromSearch() != hideShop) {
+                shops.put(locationKey, shopSearchActivity.withHiddenFromSearch(hideShop));
+            }
+        });
+    }
+
+    /**
+     * Streams shops.json on a virtual thread into the store in chunks, then syncs the shops
+     * with QuickShop and migrates hiddenShops.json. Until this completes, searches are gated
+     * (see {@link #isShopsLoaded()}) and async writers wait for it.
+     */
+    public static void loadShopsFromFileAsync() {
+        CompletableFuture<Void> loadFuture = new CompletableFuture<>();
+        shopsLoaded = loadFuture;
+        shopsFileLoadFailed = false;
+        VirtualThreadScheduler.runTaskAsync(() -> {
             try {
-                Reader reader = new FileReader(file);
-                ShopSearchActivityModel[] h = gson.fromJson(reader, ShopSearchActivityModel[].class);
-                if(h != null) {
-                    globalShopsList = new ArrayList<>(Arrays.asList(h));
-                }
-                else {
-                    globalShopsList = new ArrayList<>();
+                long start = System.currentTimeMillis();
+                ShopSearchActivityStore.submit(shops -> shops.clear());
+                readShopsFromFile(chunk -> ShopSearchActivityStore.submit(shops -> ShopSearchActivityStore.putAll(shops, chunk)));
+                ShopSearchActivityStore.submit(ShopSearchActivityStorageUtil::syncShopsWithQuickShop);
+                // v2.0.0.0 - Migrating hiddenShops.json to shops.json
+                ShopSearchActivityStore.submit(ShopSearchActivityStorageUtil::migrateHiddenShopsToShopsJson).get();
+                Logger.logInfo("Loaded " + getGlobalShopsList().size() + " shops from file. Time took: " + (System.currentTimeMillis() - start) + "ms.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                Logger.logError("Error while loading shops from file", e);
+            } finally {
+                loadFuture.complete(null);
+            }
+        });
+    }
+
+    private static void readShopsFromFile(Consumer<List<ShopSearchActivityModel>> chunkConsumer) {
+        Gson gson = createGson();
+        File file = new File(FindItemAddOn.getInstance().getDataFolder().getAbsolutePath() + "/" + SHOP_SEARCH_ACTIVITY_JSON_FILE_NAME);
+        if(!file.exists() || file.length() == 0) {
+            return;
+        }
+        try(JsonReader reader = new JsonReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            if(reader.peek() == JsonToken.BEGIN_ARRAY) {
+                List<ShopSearchActivityModel> chunk = new ArrayList<>(SHOPS_LOAD_CHUNK_SIZE);
+                reader.beginArray();
+                while(reader.hasNext()) {
+                    ShopSearchActivityModel shop = gson.fromJson(reader, ShopSearchActivityModel.class);
+                    if(shop != null) {
+                        chunk.add(shop);
+                    }
+                    if(chunk.size() == SHOPS_LOAD_CHUNK_SIZE) {
+                        chunkConsumer.accept(chunk);
+                        chunk = new ArrayList<>(SHOPS_LOAD_CHUNK_SIZE);
+                    }
                 }
-                Logger.logInfo("Loaded shops from file");
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
+                reader.endArray();
+                chunkConsumer.accept(chunk);
             }
+        } catch (IOException | RuntimeException e) {
+            shopsFileLoadFailed = true;
+            Logger.logError("Could not read " + SHOP_SEARCH_ACTIVITY_JSON_FILE_NAME + ". It will not be overwritten on shutdown.", e);
         }
-        globalShopsList = FindItemAddOn.getQsApiInstance().syncShopsListForStorage(globalShopsList);
+    }
+
+    private static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ShopSearchActivityModel.class, new ShopSearchActivityTypeAdapter(
+                        ownerName -> FindItemAddOn.getQsApiInstance().convertNameToUuid(ownerName)))
+                .create();
     }
 
     public static void saveShopsToFile() {
-        Gson gson = new GsonBuilder().create();
+        if(!isShopsLoaded() || shopsFileLoadFailed) {
+            Logger.logWarning("Shops were not loaded from file, skipping save of " + SHOP_SEARCH_ACTIVITY_JSON_FILE_NAME);
+            return;
+        }
+        ShopSearchActivityStore.flush();
+        Gson gson = createGson();
         File file = new File(FindItemAddOn.getInstance().getDataFolder().getAbsolutePath() + "/" + SHOP_SEARCH_ACTIVITY_JSON_FILE_NAME);
         file.getParentFile().mkdir();
         try {
             file.createNewFile();
-            Writer writer = new FileWriter(file, false);
-            gson.toJson(globalShopsList, writer);
+            Writer writer = new FileWriter(file, StandardCharsets.UTF_8, false);
+            gson.toJson(getGlobalShopsList(), SHOPS_LIST_TYPE, writer);
             writer.flush();
             writer.close();
             Logger.logInfo("Saved shops to file");
@@ -220,29 +310,36 @@ public class ShopSearchActivityStorageUtil {
         }
     }
 
-    public static void migrateHiddenShopsToShopsJson() {
+    /**
+     * Stops the store writer, call on plugin disable after saving
+     */
+    public static void shutdown() {
+        ShopSearchActivityStore.stop();
+    }
+
+    private static void migrateHiddenShopsToShopsJson(Map<ShopLocationKey, ShopSearchActivityModel> shops) {
         File hiddenShopsJsonfile = new File(FindItemAddOn.getInstance().getDataFolder().getAbsolutePath() + "/" + HiddenShopStorageUtil.HIDDEN_SHOP_STORAGE_JSON_FILE_NAME);
         if(hiddenShopsJsonfile.exists()) {
             HiddenShopStorageUtil.loadHiddenShopsFromFile();
-            if(HiddenShopStorageUtil.hiddenShopsList.size() > 0) {
-                for(int globalShopsList_i = 0 ; globalShopsList_i < globalShopsList.size() ; globalShopsList_i++) {
-                    ShopSearchActivityModel shopSearchActivity = globalShopsList.get(globalShopsList_i);
-                    HiddenShopModel tempHiddenShop = null;
-                    for(HiddenShopModel hiddenShop_i : HiddenShopStorageUtil.hiddenShopsList) {
-                        if(shopSearchActivity.compareWith(hiddenShop_i.getWorldName(),
-                                hiddenShop_i.getX(),
-                                hiddenShop_i.getY(),
-                                hiddenShop_i.getZ(),
-                                hiddenShop_i.getShopOwnerUUID())) {
-                            tempHiddenShop = hiddenShop_i;
-                            shopSearchActivity.setHiddenFromSearch(true);
-                            globalShopsList.set(globalShopsList_i, shopSearchActivity);
-                            Logger.logDebugInfo("Converted shop: " + shopSearchActivity);
-                        }
-                    }
-                    HiddenShopStorageUtil.hiddenShopsList.remove(tempHiddenShop);
+            for(HiddenShopModel hiddenShop_i : HiddenShopStorageUtil.hiddenShopsList) {
+                ShopLocationKey locationKey = ShopLocationKey.of(
+                        hiddenShop_i.getWorldName(),
+                        hiddenShop_i.getX(),
+                        hiddenShop_i.getY(),
+                        hiddenShop_i.getZ()
+                );
+                ShopSearchActivityModel shopSearchActivity = shops.get(locationKey);
+                if(shopSearchActivity != null && shopSearchActivity.compareWith(hiddenShop_i.getWorldName(),
+                        hiddenShop_i.getX(),
+                        hiddenShop_i.getY(),
+                        hiddenShop_i.getZ(),
+                        hiddenShop_i.getShopOwnerUUID())) {
+                    ShopSearchActivityModel updatedShop = shopSearchActivity.withHiddenFromSearch(true);
+                    shops.put(locationKey, updatedShop);
+                    Logger.logDebugInfo("Converted shop: " + updatedShop);
                 }
             }
+            HiddenShopStorageUtil.hiddenShopsList.clear();
             Logger.logDebugInfo("Here we will delete the hiddenShops.json");
             hiddenShopsJsonfile.delete();
         }
@@ -252,84 +349,89 @@ public class ShopSearchActivityStorageUtil {
     }
 
     public static void addPlayerVisitEntryAsync(Location shopLocation, Player visitingPlayer) {
+        ShopLocationKey locationKey = toLocationKey(shopLocation);
+        UUID playerUUID = visitingPlayer.getUniqueId();
+        String playerName = visitingPlayer.getName();
+        if(locationKey == null) {
+            return;
+        }
         VirtualThreadScheduler.runTaskAsync(() -> {
-            if(handleCooldownIfPresent(shopLocation, visitingPlayer)) {
-                Iterator<ShopSearchActivityModel> shopSearchActivityIterator = globalShopsList.iterator();
-                int i = 0;
-                while(shopSearchActivityIterator.hasNext()) {
-                    ShopSearchActivityModel shopSearchActivity = shopSearchActivityIterator.next();
-                    if(shopSearchActivity.compareWith(
-                            shopLocation.getWorld().getName(),
-                            shopLocation.getX(),
-                            shopLocation.getY(),
-                            shopLocation.getZ()
-                    )) {
-                        PlayerShopVisitModel playerShopVisit = new PlayerShopVisitModel();
-                        playerShopVisit.setPlayerUUID(visitingPlayer.getUniqueId());
-                        playerShopVisit.setVisitDateTime();
-                        globalShopsList.get(i).getPlayerVisitList().add(playerShopVisit);
-                        Logger.logDebugInfo("Added new player visit entry at " + shopLocation);
-                        break;
-                    }
-                    i++;
-                }
+            if(!awaitShopsLoaded()) {
+                return;
             }
+            // cooldown is checked on the writer so that two quick visits can't both pass it
+            ShopSearchActivityStore.submit(shops -> {
+                ShopSearchActivityModel shopSearchActivity = shops.get(locationKey);
+                if(shopSearchActivity == null) {
+                    Logger.logDebugInfo(ColorTranslator.translateColorCodes("&6Shop not found, returning false for cooldown check"));
+                    return;
+                }
+                if(handleCooldownIfPresent(shopSearchActivity, playerUUID, playerName)) {
+                    PlayerShopVisitModel playerShopVisit = new PlayerShopVisitModel(playerUUID, Instant.now());
+                    shops.put(locationKey, shopSearchActivity.withPlayerVisit(playerShopVisit));
+                    Logger.logDebugInfo("Added new player visit entry at " + shopLocation);
+                }
+            });
         });
     }
 
     public static int getPlayerVisitCount(Location shopLocation) {
-        for(ShopSearchActivityModel shopSearchActivity : globalShopsList) {
-            if (shopSearchActivity.compareWith(
-                    shopLocation.getWorld().getName(),
-                    shopLocation.getX(),
-                    shopLocation.getY(),
-                    shopLocation.getZ()
-            )) {
-                return shopSearchActivity.getPlayerVisitList().size();
-            }
+        ShopSearchActivityModel shopSearchActivity = getShopSearchActivity(shopLocation);
+        return shopSearchActivity != null ? shopSearchActivity.getTotalVisitCount() : 0;
+    }
+
+    /**
+     * Returns the number of visits to the shop within the given period.
+     * Rolled up visits are counted at the granularity of their bucket.
+     * @param shopLocation Shop location
+     * @param period Period to count visits for, ending now
+     * @return Visit count
+     */
+    public static int getPlayerVisitCount(Location shopLocation, Duration period) {
+        ShopSearchActivityModel shopSearchActivity = getShopSearchActivity(shopLocation);
+        if(shopSearchActivity == null) {
+            return 0;
+        }
+        Instant since = Instant.now().minus(period);
+        int rawCount = (int) shopSearchActivity.getPlayerVisitList()
+                .stream()
+                .filter(visit -> !visit.getVisitDateTime().isBefore(since))
+                .count();
+        return rawCount + shopSearchActivity.getVisitRollup().getCountSince(since);
+    }
+
+    /**
+     * Moves raw visit entries older than the configured retention into the time-bucketed rollups
+     * and merges older buckets, so that shops.json doesn't keep growing with old visit records.
+     */
+    public static void rollupPlayerVisits() {
+        if(!isShopsLoaded()) {
+            return;
         }
-        return 0;
+        int rawRetentionInDays = FindItemAddOn.getConfigProvider().SHOP_PLAYER_VISIT_RAW_RETENTION_IN_DAYS;
+        Instant now = Instant.now();
+        ShopSearchActivityStore.submit(shops -> {
+            int shopsChanged = 0;
+            for(Map.Entry<ShopLocationKey, ShopSearchActivityModel> shopEntry : shops.entrySet()) {
+                ShopSearchActivityModel updatedShop = shopEntry.getValue().withVisitsRolledUp(rawRetentionInDays, now);
+                if(updatedShop != null) {
+                    shopEntry.setValue(updatedShop);
+                    shopsChanged++;
+                }
+            }
+            Logger.logDebugInfo("Rolled up player visits for " + shopsChanged + " shops");
+        });
     }
 
     @Nullable
     public static OfflinePlayer getShopOwner(@NotNull Location shopLocation) {
-        for(ShopSearchActivityModel shopSearchActivity : globalShopsList) {
-            if (shopSearchActivity.compareWith(
-                    shopLocation.getWorld().getName(),
-                    shopLocation.getX(),
-                    shopLocation.getY(),
-                    shopLocation.getZ()
-            )) {
-                return Bukkit.getOfflinePlayer(UUID.fromString(shopSearchActivity.getShopOwnerUUID()));
-            }
-        }
-        return null;
+        UUID shopOwnerUUID = getShopOwnerUUID(shopLocation);
+        return shopOwnerUUID != null ? Bukkit.getOfflinePlayer(shopOwnerUUID) : null;
     }
 
     @Nullable
     public static UUID getShopOwnerUUID(@NotNull Location shopLocation) {
-        Iterator<ShopSearchActivityModel> globalShopsListIterator = globalShopsList.iterator();
-        while(globalShopsListIterator.hasNext()) {
-            ShopSearchActivityModel shopSearchActivity = globalShopsListIterator.next();
-            if (shopSearchActivity.compareWith(
-                    shopLocation.getWorld().getName(),
-                    shopLocation.getX(),
-                    shopLocation.getY(),
-                    shopLocation.getZ()
-            )) {
-                String uuidStr = shopSearchActivity.getShopOwnerUUID();
-                try {
-                    return UUID.fromString(uuidStr);
-                } catch (IllegalArgumentException e) {
-                    if(!FindItemAddOn.isQSReremakeInstalled()) {
-                        UUID uuid = FindItemAddOn.getQsApiInstance().convertNameToUuid(uuidStr);
-                        int index = globalShopsList.indexOf(shopSearchActivity);
-                        globalShopsList.get(index).setShopOwnerUUID(uuid.toString());
-                    }
-                }
-                return UUID.fromString(shopSearchActivity.getShopOwnerUUID());
-            }
-        }
-        return null;
+        ShopSearchActivityModel shopSearchActivity = getShopSearchActivity(shopLocation);
+        return shopSearchActivity != null ? shopSearchActivity.getShopOwnerUUID() : null;
     }
 }
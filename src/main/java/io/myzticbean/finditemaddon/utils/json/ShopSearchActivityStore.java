@@ -0,0 +1,174 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils.json;
+
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import io.myzticbean.finditemaddon.models.ShopSearchActivityModel;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-writer store backing {@link ShopSearchActivityStorageUtil}.
+ * <p>
+ * Mutations are queued and applied in batches by one virtual thread, directly on a concurrent map.
+ * Reads don't lock and only ever see whole models: models in the map must not be modified,
+ * mutations replace the affected entries with updated copies.
+ * @author myzticbean
+ */
+class ShopSearchActivityStore {
+
+    private static final int MAX_MUTATIONS_PER_BATCH = 512;
+    private static final long FLUSH_TIMEOUT_IN_SECONDS = 10;
+
+    private static final BlockingQueue<PendingMutation> mutationQueue = new LinkedBlockingQueue<>();
+    private static final Map<ShopLocationKey, ShopSearchActivityModel> shopsByLocation = new ConcurrentHashMap<>();
+    private static Thread writerThread;
+    private static volatile boolean stopped = false;
+
+    private ShopSearchActivityStore() {
+        // prevent instantiation
+    }
+
+    /**
+     * A change to the shops, keyed by {@link ShopSearchActivityModel#getLocationKey()}.
+     * Runs on the writer thread.
+     */
+    @FunctionalInterface
+    interface Mutation {
+        void apply(Map<ShopLocationKey, ShopSearchActivityModel> shops);
+    }
+
+    private record PendingMutation(Mutation mutation, CompletableFuture<Void> applied) {}
+
+    /**
+     * @return Read-only live view of all shops
+     */
+    static Collection<ShopSearchActivityModel> shops() {
+        return Collections.unmodifiableCollection(shopsByLocation.values());
+    }
+
+    static ShopSearchActivityModel get(ShopLocationKey locationKey) {
+        return shopsByLocation.get(locationKey);
+    }
+
+    /**
+     * Queues a mutation. Mutations submitted after {@link #stop()} are dropped.
+     * @return future completed once the mutation is visible to readers
+     */
+    static CompletableFuture<Void> submit(Mutation mutation) {
+        if(stopped) {
+            Logger.logWarning("Dropped a shop update submitted after shutdown");
+            return CompletableFuture.failedFuture(new IllegalStateException("Shop store is stopped"));
+        }
+        ensureWriterRunning();
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        mutationQueue.add(new PendingMutation(mutation, applied));
+        return applied;
+    }
+
+    /**
+     * Waits until all mutations queued so far are published
+     */
+    static void flush() {
+        try {
+            submit(shops -> {}).get(FLUSH_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Logger.logWarning("Timed out waiting for pending shop updates");
+        }
+    }
+
+    /**
+     * Replaces the shops without clearing the map first, so readers never see it empty
+     */
+    static void replaceAll(Map<ShopLocationKey, ShopSearchActivityModel> shops, Collection<ShopSearchActivityModel> newShops) {
+        Set<ShopLocationKey> newLocationKeys = new HashSet<>();
+        for(ShopSearchActivityModel shop : newShops) {
+            newLocationKeys.add(shop.getLocationKey());
+        }
+        shops.keySet().retainAll(newLocationKeys);
+        putAll(shops, newShops);
+    }
+
+    static void putAll(Map<ShopLocationKey, ShopSearchActivityModel> shops, Collection<ShopSearchActivityModel> newShops) {
+        for(ShopSearchActivityModel shop : newShops) {
+            shops.put(shop.getLocationKey(), shop);
+        }
+    }
+
+    static synchronized void stop() {
+        stopped = true;
+        if(writerThread != null) {
+            writerThread.interrupt();
+            writerThread = null;
+        }
+    }
+
+    private static synchronized void ensureWriterRunning() {
+        if(!stopped && (writerThread == null || !writerThread.isAlive())) {
+            writerThread = Thread.ofVirtual()
+                    .name("QSFindItemAddOn-ShopStore")
+                    .start(ShopSearchActivityStore::drainMutations);
+        }
+    }
+
+    private static void drainMutations() {
+        List<PendingMutation> batch = new ArrayList<>();
+        while(!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(mutationQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            mutationQueue.drainTo(batch, MAX_MUTATIONS_PER_BATCH - 1);
+            applyBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private static void applyBatch(List<PendingMutation> batch) {
+        for(PendingMutation pending : batch) {
+            try {
+                pending.mutation().apply(shopsByLocation);
+            } catch (Exception e) {
+                Logger.logError("Error while updating shops", e);
+                pending.applied().completeExceptionally(e);
+            }
+        }
+        for(PendingMutation pending : batch) {
+            pending.applied().complete(null);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils.json;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.myzticbean.finditemaddon.models.PlayerShopVisitModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import io.myzticbean.finditemaddon.models.ShopSearchActivityModel;
+import io.myzticbean.finditemaddon.models.ShopVisitRollupModel;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Converts between the compact in-memory {@link ShopSearchActivityModel} and the shops.json format,
+ * which stays the same as before (world name, coordinates, UUID and ISO date strings).
+ * pitch and yaw are no longer written, older versions read them as 0.
+ * @author myzticbean
+ */
+class ShopSearchActivityTypeAdapter extends TypeAdapter<ShopSearchActivityModel> {
+
+    private final Function<String, UUID> ownerNameResolver;
+
+    /**
+     * @param ownerNameResolver Resolves the UUID of a shop owner that was stored by name (older versions)
+     */
+    ShopSearchActivityTypeAdapter(Function<String, UUID> ownerNameResolver) {
+        this.ownerNameResolver = ownerNameResolver;
+    }
+
+    @Override
+    public void write(JsonWriter out, ShopSearchActivityModel shop) throws IOException {
+        if(shop == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("worldName").value(shop.getWorldName());
+        out.name("x").value(shop.getBlockX());
+        out.name("y").value(shop.getBlockY());
+        out.name("z").value(shop.getBlockZ());
+        out.name("shopOwnerUUID").value(shop.getShopOwnerUUID().toString());
+        out.name("playerVisitList").beginArray();
+        for(PlayerShopVisitModel visit : shop.getPlayerVisitList()) {
+            out.beginObject();
+            out.name("playerUUID").value(visit.getPlayerUUID().toString());
+            out.name("visitDateTime").value(visit.getVisitDateTime().toString());
+            out.endObject();
+        }
+        out.endArray();
+        out.name("isHiddenFromSearch").value(shop.isHiddenFromSearch());
+        out.name("visitRollup").beginObject();
+        writeBuckets(out, "hourly", shop.getVisitRollup().getHourly());
+        writeBuckets(out, "daily", shop.getVisitRollup().getDaily());
+        writeBuckets(out, "monthly", shop.getVisitRollup().getMonthly());
+        out.endObject();
+        out.endObject();
+    }
+
+    @Override
+    public ShopSearchActivityModel read(JsonReader in) throws IOException {
+        if(in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String worldName = null;
+        double x = 0;
+        double y = 0;
+        double z = 0;
+        String shopOwner = null;
+        List<PlayerShopVisitModel> playerVisitList = new ArrayList<>();
+        boolean isHiddenFromSearch = false;
+        ShopVisitRollupModel visitRollup = new ShopVisitRollupModel();
+
+        in.beginObject();
+        while(in.hasNext()) {
+            String name = in.nextName();
+            if(in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch(name) {
+                case "worldName" -> worldName = in.nextString();
+                case "x" -> x = in.nextDouble();
+                case "y" -> y = in.nextDouble();
+                case "z" -> z = in.nextDouble();
+                case "shopOwnerUUID" -> shopOwner = in.nextString();
+                case "playerVisitList" -> readVisits(in, playerVisitList);
+                case "isHiddenFromSearch" -> isHiddenFromSearch = in.nextBoolean();
+                case "visitRollup" -> readRollup(in, visitRollup);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if(worldName == null || shopOwner == null) {
+            throw new JsonParseException("Shop entry is missing worldName or shopOwnerUUID at " + in.getPath());
+        }
+        return new ShopSearchActivityModel(ShopLocationKey.of(worldName, x, y, z), resolveOwner(shopOwner),
+                playerVisitList, isHiddenFromSearch, visitRollup);
+    }
+
+    private UUID resolveOwner(String shopOwner) {
+        try {
+            return UUID.fromString(shopOwner);
+        } catch (IllegalArgumentException e) {
+            UUID ownerUUID = null;
+            try {
+                ownerUUID = ownerNameResolver.apply(shopOwner);
+            } catch (Exception ex) {
+                Logger.logDebugInfo("Could not resolve UUID of shop owner " + shopOwner + ": " + ex.getMessage());
+            }
+            return ownerUUID != null ? ownerUUID : UUID.nameUUIDFromBytes(("OfflinePlayer:" + shopOwner).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void readVisits(JsonReader in, List<PlayerShopVisitModel> playerVisitList) throws IOException {
+        in.beginArray();
+        while(in.hasNext()) {
+            String playerUUID = null;
+            String visitDateTime = null;
+            in.beginObject();
+            while(in.hasNext()) {
+                String name = in.nextName();
+                if(in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                } else if(name.equals("playerUUID")) {
+                    playerUUID = in.nextString();
+                } else if(name.equals("visitDateTime")) {
+                    visitDateTime = in.nextString();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            if(playerUUID != null && visitDateTime != null) {
+                try {
+                    playerVisitList.add(new PlayerShopVisitModel(UUID.fromString(playerUUID), Instant.parse(visitDateTime)));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    Logger.logDebugInfo("Skipping invalid shop visit entry at " + in.getPath());
+                }
+            }
+        }
+        in.endArray();
+    }
+
+    private static void readRollup(JsonReader in, ShopVisitRollupModel visitRollup) throws IOException {
+        in.beginObject();
+        while(in.hasNext()) {
+            switch(in.nextName()) {
+                case "hourly" -> readBuckets(in, visitRollup.getHourly());
+                case "daily" -> readBuckets(in, visitRollup.getDaily());
+                case "monthly" -> readBuckets(in, visitRollup.getMonthly());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    private static void readBuckets(JsonReader in, Map<Long, Integer> buckets) throws IOException {
+        in.beginObject();
+        while(in.hasNext()) {
+            long bucket = Long.parseLong(in.nextName());
+            buckets.merge(bucket, in.nextInt(), Integer::sum);
+        }
+        in.endObject();
+    }
+
+    private static void writeBuckets(JsonWriter out, String name, Map<Long, Integer> buckets) throws IOException {
+        out.name(name).beginObject();
+        for(Map.Entry<Long, Integer> bucket : buckets.entrySet()) {
+            out.name(String.valueOf(bucket.getKey())).value(bucket.getValue());
+        }
+        out.endObject();
+    }
+}
@@ -20,17 +20,12 @@ package io.myzticbean.finditemaddon.utils.warp;
 
 import io.myzticbean.finditemaddon.dependencies.EssentialsXPlugin;
 import io.myzticbean.finditemaddon.models.EssentialWarpModel;
-import io.myzticbean.finditemaddon.utils.CommonUtils;
 import lombok.experimental.UtilityClass;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-
 /**
  * @author myzticbean
  */
@@ -39,30 +34,17 @@ public class EssentialWarpsUtil {
 
     @Nullable
     public static String findNearestWarp(Location shopLocation) {
-        List<EssentialWarpModel> allWarps = EssentialsXPlugin.getAllWarps();
-        if(allWarps != null && !allWarps.isEmpty()) {
-            Map<Double, String> warpDistanceMap = new TreeMap<>();
-            allWarps.forEach(warp -> {
-                Double distance = CommonUtils.calculateDistance3D(
-                        shopLocation.getX(),
-                        shopLocation.getY(),
-                        shopLocation.getZ(),
-                        warp.warpLoc.getX(),
-                        warp.warpLoc.getY(),
-                        warp.warpLoc.getZ()
-                );
-                warpDistanceMap.put(distance, warp.warpName);
-            });
-            /*if(FindItemAddOn.getConfigProvider().DEBUG_MODE) {
-                for(Map.Entry<Double, String> entry : warpDistanceMap.entrySet()) {
-                    LoggerUtils.logDebugInfo(entry.getValue() + " : " + entry.getKey());
-                }
-            }*/
-            return warpDistanceMap.entrySet().iterator().next().getValue();
-        }
-        else {
+        EssentialWarpModel nearestWarp = findNearestWarpModel(shopLocation);
+        return nearestWarp != null ? nearestWarp.warpName : null;
+    }
+
+    @Nullable
+    public static EssentialWarpModel findNearestWarpModel(Location shopLocation) {
+        WarpGridIndex<EssentialWarpModel> warpIndex = EssentialsXPlugin.getWarpIndex();
+        if(warpIndex == null) {
             return null;
         }
+        return warpIndex.findNearest(shopLocation, null);
     }
 
     public static void warpPlayer(Player player, String warpName) {
@@ -0,0 +1,138 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils.warp;
+
+import io.myzticbean.finditemaddon.dependencies.EssentialsXPlugin;
+import io.myzticbean.finditemaddon.utils.async.VirtualThreadScheduler;
+import io.myzticbean.finditemaddon.utils.log.Logger;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Watches the EssentialsX warps folder and re-reads only the warps whose file was created, changed
+ * or deleted, so new warps show up without waiting for the periodic full reload.
+ * @author myzticbean
+ */
+@UtilityClass
+public class EssentialsWarpsWatcher {
+
+    private static final String WARP_FILE_EXTENSION = ".yml";
+    /** Essentials saves warp files in several writes, so changes are collected for a moment */
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private static volatile WatchService watchService = null;
+
+    public static boolean isWatching() {
+        return watchService != null;
+    }
+
+    /**
+     * Starts watching the warps folder, if not watching already
+     */
+    public static synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+        Path warpsFolder = EssentialsXPlugin.getAPI().getDataFolder().toPath().resolve("warps");
+        if (!Files.isDirectory(warpsFolder)) {
+            Logger.logDebugInfo("Essentials warps folder not found, warps will be reloaded periodically");
+            return;
+        }
+        try {
+            WatchService newWatchService = FileSystems.getDefault().newWatchService();
+            warpsFolder.register(newWatchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            watchService = newWatchService;
+            VirtualThreadScheduler.runTaskAsync(() -> watch(newWatchService));
+            Logger.logDebugInfo("Watching Essentials warps folder for changes");
+        } catch (IOException e) {
+            Logger.logWarning("Could not watch Essentials warps folder, warps will be reloaded periodically: " + e.getMessage());
+        }
+    }
+
+    public static synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+            watchService = null;
+        }
+    }
+
+    private static void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Thread.sleep(DEBOUNCE_MILLIS);
+                Set<String> changedWarps = new HashSet<>();
+                boolean isOverflow = false;
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            isOverflow = true;
+                        } else if (event.context() instanceof Path changedFile) {
+                            String fileName = changedFile.getFileName().toString();
+                            if (fileName.endsWith(WARP_FILE_EXTENSION)) {
+                                changedWarps.add(fileName.substring(0, fileName.length() - WARP_FILE_EXTENSION.length()));
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        // the warps folder is gone
+                        stopWatching(service);
+                        return;
+                    }
+                    key = service.poll();
+                }
+                if (isOverflow) {
+                    EssentialsXPlugin.updateAllWarps();
+                } else {
+                    // warp files are named after the warp (lower case), so this finds the warp either way
+                    changedWarps.forEach(EssentialsXPlugin::updateWarp);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ignored) {
+            // stopped
+        } catch (Exception e) {
+            Logger.logError("Stopped watching Essentials warps folder: " + e.getMessage());
+            stopWatching(service);
+        }
+    }
+
+    private static synchronized void stopWatching(WatchService service) {
+        if (watchService == service) {
+            stop();
+        }
+    }
+}
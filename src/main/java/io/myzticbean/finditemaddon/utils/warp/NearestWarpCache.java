@@ -0,0 +1,132 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils.warp;
+
+import com.olziedev.playerwarps.api.warp.Warp;
+import io.myzticbean.finditemaddon.models.EssentialWarpModel;
+import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import io.myzticbean.finditemaddon.utils.WorldNameDictionary;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Location;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nearest EssentialsX / PlayerWarps warp of each shop, looked up once and reused for the
+ * {@code {NEAREST_WARP}} lore and warp teleports.
+ * <p>
+ * A shop's nearest warp only changes when warps are created or removed, so entries are dropped just
+ * for the shops a created warp is nearer to, and for the shops whose nearest warp was removed.
+ * Everything is dropped when the warp list is reloaded or the config changes.
+ * <p>
+ * PlayerWarps has no cache invalidation for warps being locked or unlocked, so with
+ * 'do-not-tp-if-warp-locked' the lookups whose result depends on lock states are not cached.
+ * @author myzticbean
+ */
+@UtilityClass
+public class NearestWarpCache {
+
+    /**
+     * @param shopOwner Owner the warp was looked up for (PlayerWarps only)
+     * @param warpName Nearest warp, or null if there was none
+     * @param distanceSquared Squared distance from the shop to the warp
+     */
+    private record CachedNearestWarp(@Nullable UUID shopOwner, @Nullable String warpName, double distanceSquared) {}
+
+    private static final Map<ShopLocationKey, CachedNearestWarp> cachedWarps = new ConcurrentHashMap<>();
+
+    /**
+     * @return Name of the EssentialsX warp nearest to the shop, or null if there is none
+     */
+    @Nullable
+    public static String getNearestEssentialsWarp(FoundShopItemModel shop) {
+        CachedNearestWarp cached = cachedWarps.get(shop.getShopLocationKey());
+        if(cached != null) {
+            return cached.warpName();
+        }
+        EssentialWarpModel nearestWarp = EssentialWarpsUtil.findNearestWarpModel(shop.getShopLocation());
+        if(nearestWarp == null) {
+            return cacheNearestWarp(shop, null, null, Double.MAX_VALUE);
+        }
+        return cacheNearestWarp(shop, null, nearestWarp.warpName, distanceSquared(shop.getShopLocationKey(),
+                nearestWarp.warpLoc.getX(), nearestWarp.warpLoc.getY(), nearestWarp.warpLoc.getZ()));
+    }
+
+    /**
+     * @return Name of the PlayerWarps warp nearest to the shop, or null if there is none
+     */
+    @Nullable
+    public static String getNearestPlayerWarp(FoundShopItemModel shop) {
+        CachedNearestWarp cached = cachedWarps.get(shop.getShopLocationKey());
+        if(cached != null && Objects.equals(cached.shopOwner(), shop.getShopOwner())) {
+            return cached.warpName();
+        }
+        Warp nearestWarp = PlayerWarpsUtil.findNearestWarp(shop.getShopLocation(), shop.getShopOwner());
+        double nearestDistanceSquared = nearestWarp == null ? Double.MAX_VALUE : distanceSquared(shop.getShopLocationKey(),
+                nearestWarp.getWarpLocation().getX(), nearestWarp.getWarpLocation().getY(), nearestWarp.getWarpLocation().getZ());
+        String warpName = nearestWarp == null ? null : nearestWarp.getWarpName();
+        if(PlayerWarpsUtil.dependsOnWarpLocks(nearestWarp, nearestDistanceSquared)) {
+            return warpName;
+        }
+        return cacheNearestWarp(shop, shop.getShopOwner(), warpName, nearestDistanceSquared);
+    }
+
+    @Nullable
+    private static String cacheNearestWarp(FoundShopItemModel shop, @Nullable UUID shopOwner,
+                                           @Nullable String warpName, double distanceSquared) {
+        cachedWarps.put(shop.getShopLocationKey(), new CachedNearestWarp(shopOwner, warpName, distanceSquared));
+        return warpName;
+    }
+
+    /**
+     * Drops the shops in the warp's world that the new warp is at least as near to as their cached nearest warp
+     */
+    public static void warpCreated(String worldName, double x, double y, double z) {
+        int worldId = WorldNameDictionary.idOf(worldName);
+        cachedWarps.entrySet().removeIf(entry -> entry.getKey().worldId() == worldId
+                && distanceSquared(entry.getKey(), x, y, z) <= entry.getValue().distanceSquared());
+    }
+
+    /**
+     * Drops the shops whose nearest warp was the removed warp
+     */
+    public static void warpRemoved(String warpName) {
+        cachedWarps.values().removeIf(cached -> warpName.equals(cached.warpName()));
+    }
+
+    public static void invalidateShop(Location shopLocation) {
+        cachedWarps.remove(ShopLocationKey.of(shopLocation));
+    }
+
+    public static void clear() {
+        cachedWarps.clear();
+    }
+
+    private static double distanceSquared(ShopLocationKey shopLocationKey, double x, double y, double z) {
+        double dx = shopLocationKey.blockX() - x;
+        double dy = shopLocationKey.blockY() - y;
+        double dz = shopLocationKey.blockZ() - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -30,9 +30,6 @@ import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.UUID;
 
 /**
@@ -41,48 +38,50 @@ import java.util.UUID;
 @UtilityClass
 public class PlayerWarpsUtil {
 
+    /** Locked warps further away than this are not used for teleporting, if 'do-not-tp-if-warp-locked' is set */
+    private static final double MAX_LOCKED_WARP_DISTANCE = 500;
+
     @Nullable
     public static Warp findNearestWarp(Location shopLocation, UUID shopOwner) {
-        Logger.logDebugInfo("Find nearest warp for shop location " + shopLocation);
-        List<Warp> playersWarps = PlayerWarpsPlugin.getAllWarps().stream()
-                .filter(warp -> warp.getWarpLocation().getWorld() != null)
-                .filter(warp -> warp.getWarpLocation().getWorld().equals(shopLocation.getWorld().getName()))
-                .toList();
-        if(FindItemAddOn.getConfigProvider().ONLY_SHOW_PLAYER_OWNDED_WARPS) {
-            playersWarps = playersWarps.stream()
-                    .filter(warp -> warp.getWarpPlayer().getUUID().equals(shopOwner))
-                    .toList();
+        WarpGridIndex<Warp> warpIndex = FindItemAddOn.getConfigProvider().ONLY_SHOW_PLAYER_OWNDED_WARPS
+                ? PlayerWarpsPlugin.getOwnerWarpIndex(shopOwner)
+                : PlayerWarpsPlugin.getWarpIndex();
+        if(warpIndex == null) {
+            return null;
         }
-        if (!playersWarps.isEmpty()) {
-            Map<Double, Warp> warpDistanceMap = new TreeMap<>();
-            playersWarps.forEach(warp ->{
-                        var distance3D = CommonUtils.calculateDistance3D(
-                                shopLocation.getX(),
-                                shopLocation.getY(),
-                                shopLocation.getZ(),
-                                warp.getWarpLocation().getX(),
-                                warp.getWarpLocation().getY(),
-                                warp.getWarpLocation().getZ()
-                        );
-                        warpDistanceMap.put(distance3D, warp);
-                        Logger.logDebugInfo("Warp Distance: " + distance3D + " Warp Name: " + warp.getWarpName() + ", Warp World: " + warp.getWarpLocation().getWorld());
-                    }
-                );
-            for (Map.Entry<Double, Warp> doubleWarpEntry : warpDistanceMap.entrySet()) {
-                Double distance3D = doubleWarpEntry.getKey();
-                Warp warp = doubleWarpEntry.getValue();
-                Logger.logDebugInfo("Warp: " + warp.getWarpName() + " " + warp.isWarpLocked() + " Distance in 3D: " + distance3D);
-                // Is the config set to not tp if player warp is locked, and if so, is the warp locked?
-                // also check distance from shop (should not be too long)
-                if (FindItemAddOn.getConfigProvider().DO_NOT_TP_IF_PLAYER_WARP_LOCKED
-                        && doubleWarpEntry.getValue().isWarpLocked()
-                        && distance3D > 500) {
-                    continue;
-                }
-                return doubleWarpEntry.getValue();
-            }
+        Warp nearestWarp = warpIndex.findNearest(shopLocation, null);
+        // Is the config set to not tp if player warp is locked, and if so, is the warp locked?
+        // also check distance from shop (should not be too long)
+        if(nearestWarp != null
+                && FindItemAddOn.getConfigProvider().DO_NOT_TP_IF_PLAYER_WARP_LOCKED
+                && nearestWarp.isWarpLocked()
+                && calculateDistance3D(shopLocation, nearestWarp) > MAX_LOCKED_WARP_DISTANCE) {
+            // any other locked warp is even further away, so the nearest unlocked warp is the one to use
+            nearestWarp = warpIndex.findNearest(shopLocation, warp -> !warp.isWarpLocked());
         }
-        return null;
+        return nearestWarp;
+    }
+
+    /**
+     * Whether a result of {@link #findNearestWarp(Location, UUID)} may change when warps are locked or unlocked.
+     * Within {@link #MAX_LOCKED_WARP_DISTANCE} the nearest warp is used whether it is locked or not.
+     * @param nearestWarp Warp that was found, or null if none was found
+     * @param distanceSquared Squared distance from the shop to the found warp
+     */
+    public static boolean dependsOnWarpLocks(@Nullable Warp nearestWarp, double distanceSquared) {
+        return FindItemAddOn.getConfigProvider().DO_NOT_TP_IF_PLAYER_WARP_LOCKED
+                && (nearestWarp == null || distanceSquared > MAX_LOCKED_WARP_DISTANCE * MAX_LOCKED_WARP_DISTANCE);
+    }
+
+    private static double calculateDistance3D(Location shopLocation, Warp warp) {
+        return CommonUtils.calculateDistance3D(
+                shopLocation.getX(),
+                shopLocation.getY(),
+                shopLocation.getZ(),
+                warp.getWarpLocation().getX(),
+                warp.getWarpLocation().getY(),
+                warp.getWarpLocation().getZ()
+        );
     }
 
     /**
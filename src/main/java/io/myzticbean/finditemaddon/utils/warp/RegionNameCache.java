@@ -0,0 +1,116 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils.warp;
+
+import com.bekvon.bukkit.residence.protection.ClaimedResidence;
+import io.myzticbean.finditemaddon.models.ChunkKey;
+import io.myzticbean.finditemaddon.models.FoundShopItemModel;
+import io.myzticbean.finditemaddon.models.ShopLocationKey;
+import lombok.experimental.UtilityClass;
+import org.bukkit.Location;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WorldGuard region and Residence of each shop (nearest-warp-mode 3 and 4), looked up once and
+ * reused for the {@code {NEAREST_WARP}} lore and teleports.
+ * <p>
+ * Chunks without any WorldGuard region are remembered as well, so shops in them need no lookup at all.
+ * WorldGuard entries are dropped after region commands, Residence entries after residences are
+ * created, removed, resized or renamed.
+ * @author myzticbean
+ */
+@UtilityClass
+public class RegionNameCache {
+
+    /** Cached for shops outside any region / residence */
+    private static final String NO_REGION = "";
+
+    private static final Map<ShopLocationKey, String> wgRegionNames = new ConcurrentHashMap<>();
+    private static final Set<ChunkKey> chunksWithoutWGRegions = ConcurrentHashMap.newKeySet();
+    private static final Map<ShopLocationKey, String> residenceNames = new ConcurrentHashMap<>();
+
+    /**
+     * @return Id of the highest priority WorldGuard region at the shop, or null if there is none
+     */
+    @Nullable
+    public static String getWGRegion(FoundShopItemModel shop) {
+        ShopLocationKey shopLocationKey = shop.getShopLocationKey();
+        String cachedName = wgRegionNames.get(shopLocationKey);
+        if(cachedName != null) {
+            return toRegionName(cachedName);
+        }
+        ChunkKey chunkKey = ChunkKey.of(shopLocationKey);
+        if(chunksWithoutWGRegions.contains(chunkKey)) {
+            return null;
+        }
+        Location shopLocation = shop.getShopLocation();
+        WGRegionUtils wgRegionUtils = new WGRegionUtils();
+        String regionName = wgRegionUtils.findNearestWGRegion(shopLocation);
+        if(regionName == null && wgRegionUtils.isChunkWithoutRegions(shopLocation)) {
+            chunksWithoutWGRegions.add(chunkKey);
+        } else {
+            wgRegionNames.put(shopLocationKey, regionName != null ? regionName : NO_REGION);
+        }
+        return regionName;
+    }
+
+    /**
+     * @return Name of the residence at the shop (see {@link ResidenceUtils#getResidenceName(ClaimedResidence)}), or null if there is none
+     */
+    @Nullable
+    public static String getResidence(FoundShopItemModel shop) {
+        String cachedName = residenceNames.get(shop.getShopLocationKey());
+        if(cachedName != null) {
+            return toRegionName(cachedName);
+        }
+        ClaimedResidence residence = ResidenceUtils.findNearestResidence(shop.getShopLocation());
+        String residenceName = residence != null ? ResidenceUtils.getResidenceName(residence) : null;
+        residenceNames.put(shop.getShopLocationKey(), residenceName != null ? residenceName : NO_REGION);
+        return residenceName;
+    }
+
+    @Nullable
+    private static String toRegionName(String cachedName) {
+        return cachedName.isEmpty() ? null : cachedName;
+    }
+
+    public static void invalidateWGRegions() {
+        wgRegionNames.clear();
+        chunksWithoutWGRegions.clear();
+    }
+
+    public static void invalidateResidences() {
+        residenceNames.clear();
+    }
+
+    public static void invalidateShop(Location shopLocation) {
+        ShopLocationKey shopLocationKey = ShopLocationKey.of(shopLocation);
+        wgRegionNames.remove(shopLocationKey);
+        residenceNames.remove(shopLocationKey);
+    }
+
+    public static void clear() {
+        invalidateWGRegions();
+        invalidateResidences();
+    }
+}
@@ -19,10 +19,14 @@
 package io.myzticbean.finditemaddon.utils.warp;
 
 import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldguard.protection.ApplicableRegionSet;
+import com.sk89q.worldguard.protection.managers.RegionManager;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import io.myzticbean.finditemaddon.dependencies.WGPlugin;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
@@ -54,4 +58,24 @@ public class WGRegionUtils {
             return null;
         }
     }
+
+    /**
+     * @return true if no region overlaps the chunk of the location (over the full world height)
+     */
+    public boolean isChunkWithoutRegions(Location location) {
+        World world = location.getWorld();
+        if(world == null) {
+            return false;
+        }
+        RegionManager regionManager = WGPlugin.getWgInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if(regionManager == null) {
+            return false;
+        }
+        int minX = (location.getBlockX() >> 4) << 4;
+        int minZ = (location.getBlockZ() >> 4) << 4;
+        ProtectedCuboidRegion chunkRegion = new ProtectedCuboidRegion("finditemaddon_chunk",
+                BlockVector3.at(minX, world.getMinHeight(), minZ),
+                BlockVector3.at(minX + 15, world.getMaxHeight() - 1, minZ + 15));
+        return regionManager.getApplicableRegions(chunkRegion).size() == 0;
+    }
 }
@@ -0,0 +1,218 @@
+/**
+ * QSFindItemAddOn: An Minecraft add-on plugin for the QuickShop Hikari
+ * and Reremake Shop plugins for Spigot server platform.
+ * Copyright (C) 2021  myzticbean
+ * <p>
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * <p>
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * <p>
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package io.myzticbean.finditemaddon.utils.warp;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Grid index of warp locations, partitioned by world, for nearest warp lookups.
+ * <p>
+ * Warps are bucketed into square cells on the X/Z plane. A lookup scans the cells in rings around
+ * the location, and stops as soon as no unscanned cell can hold a nearer warp. Warps in other worlds
+ * are never compared. If the rings would cover more cells than the world has, the remaining warps
+ * of the world are scanned directly, so sparse worlds do not degrade the lookup.
+ * <p>
+ * Thread safe, lookups happen off the main thread while rendering the search GUI.
+ * @param <T> Warp type
+ * @author myzticbean
+ */
+public final class WarpGridIndex<T> {
+
+    private static final int CELL_SIZE_SHIFT = 6;
+    private static final int CELL_SIZE = 1 << CELL_SIZE_SHIFT;
+
+    private record Entry<T>(T warp, String worldName, double x, double y, double z) {}
+
+    private static final class WorldGrid<T> {
+        private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+        private int minCellX = Integer.MAX_VALUE;
+        private int maxCellX = Integer.MIN_VALUE;
+        private int minCellZ = Integer.MAX_VALUE;
+        private int maxCellZ = Integer.MIN_VALUE;
+    }
+
+    private final Map<String, WorldGrid<T>> worldGrids = new HashMap<>();
+    private final Map<T, Entry<T>> entriesByWarp = new HashMap<>();
+
+    /**
+     * Adds a warp, replacing its previous location if it was already added
+     */
+    public synchronized void add(String worldName, double x, double y, double z, T warp) {
+        remove(warp);
+        Entry<T> entry = new Entry<>(warp, worldName, x, y, z);
+        WorldGrid<T> grid = worldGrids.computeIfAbsent(worldName, k -> new WorldGrid<>());
+        int cellX = toCell(x);
+        int cellZ = toCell(z);
+        grid.cells.computeIfAbsent(cellKey(cellX, cellZ), k -> new ArrayList<>(2)).add(entry);
+        grid.minCellX = Math.min(grid.minCellX, cellX);
+        grid.maxCellX = Math.max(grid.maxCellX, cellX);
+        grid.minCellZ = Math.min(grid.minCellZ, cellZ);
+        grid.maxCellZ = Math.max(grid.maxCellZ, cellZ);
+        entriesByWarp.put(warp, entry);
+    }
+
+    /**
+     * Adds a warp at the given location. Locations without a world are ignored.
+     */
+    public void add(Location location, T warp) {
+        if (location.getWorld() != null) {
+            add(location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), warp);
+        }
+    }
+
+    /**
+     * @return true if the warp was in the index
+     */
+    public synchronized boolean remove(T warp) {
+        Entry<T> entry = entriesByWarp.remove(warp);
+        if (entry == null) {
+            return false;
+        }
+        WorldGrid<T> grid = worldGrids.get(entry.worldName());
+        long key = cellKey(toCell(entry.x()), toCell(entry.z()));
+        List<Entry<T>> cell = grid.cells.get(key);
+        cell.remove(entry);
+        if (cell.isEmpty()) {
+            grid.cells.remove(key);
+            // bounds are left as they are, they only limit how far a lookup scans
+            if (grid.cells.isEmpty()) {
+                worldGrids.remove(entry.worldName());
+            }
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return entriesByWarp.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return entriesByWarp.isEmpty();
+    }
+
+    /**
+     * Finds the warp nearest to a location (3D distance) in the same world
+     * @param filter Only warps matching it are considered, or null for all warps
+     * @return Nearest warp, or null if the world has no (matching) warp
+     */
+    @Nullable
+    public T findNearest(Location location, @Nullable Predicate<T> filter) {
+        if (location.getWorld() == null) {
+            return null;
+        }
+        return findNearest(location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), filter);
+    }
+
+    /**
+     * Finds the warp nearest to a location (3D distance) in the given world
+     * @param filter Only warps matching it are considered, or null for all warps
+     * @return Nearest warp, or null if the world has no (matching) warp
+     */
+    @Nullable
+    public synchronized T findNearest(String worldName, double x, double y, double z, @Nullable Predicate<T> filter) {
+        WorldGrid<T> grid = worldGrids.get(worldName);
+        if (grid == null) {
+            return null;
+        }
+        Nearest<T> nearest = new Nearest<>(x, y, z, filter);
+        int cellX = toCell(x);
+        int cellZ = toCell(z);
+        int maxRing = Math.max(
+                Math.max(cellX - grid.minCellX, grid.maxCellX - cellX),
+                Math.max(cellZ - grid.minCellZ, grid.maxCellZ - cellZ));
+        int scannedCells = 0;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // every warp in this ring is at least (ring - 1) cells away on the X/Z plane
+            double ringDistance = (double) (ring - 1) * CELL_SIZE;
+            if (nearest.warp != null && ring > 0 && nearest.distanceSquared <= ringDistance * ringDistance) {
+                break;
+            }
+            int ringCells = ring == 0 ? 1 : ring * 8;
+            if (scannedCells + ringCells > grid.cells.size()) {
+                // cheaper to look at every remaining warp than to keep scanning empty cells
+                for (List<Entry<T>> cell : grid.cells.values()) {
+                    nearest.offerAll(cell);
+                }
+                break;
+            }
+            scannedCells += ringCells;
+            if (ring == 0) {
+                nearest.offerAll(grid.cells.get(cellKey(cellX, cellZ)));
+                continue;
+            }
+            for (int dx = -ring; dx <= ring; dx++) {
+                nearest.offerAll(grid.cells.get(cellKey(cellX + dx, cellZ - ring)));
+                nearest.offerAll(grid.cells.get(cellKey(cellX + dx, cellZ + ring)));
+            }
+            for (int dz = -ring + 1; dz < ring; dz++) {
+                nearest.offerAll(grid.cells.get(cellKey(cellX - ring, cellZ + dz)));
+                nearest.offerAll(grid.cells.get(cellKey(cellX + ring, cellZ + dz)));
+            }
+        }
+        return nearest.warp;
+    }
+
+    private static final class Nearest<T> {
+        private final double x;
+        private final double y;
+        private final double z;
+        private final Predicate<T> filter;
+        private T warp = null;
+        private double distanceSquared = Double.MAX_VALUE;
+
+        private Nearest(double x, double y, double z, @Nullable Predicate<T> filter) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.filter = filter;
+        }
+
+        private void offerAll(@Nullable List<Entry<T>> cell) {
+            if (cell == null) {
+                return;
+            }
+            for (Entry<T> entry : cell) {
+                double dx = entry.x() - x;
+                double dy = entry.y() - y;
+                double dz = entry.z() - z;
+                double entryDistanceSquared = dx * dx + dy * dy + dz * dz;
+                // on equal distance the warp found first is kept
+                if (entryDistanceSquared < distanceSquared && (filter == null || filter.test(entry.warp()))) {
+                    warp = entry.warp();
+                    distanceSquared = entryDistanceSquared;
+                }
+            }
+        }
+    }
+
+    private static int toCell(double coordinate) {
+        return ((int) Math.floor(coordinate)) >> CELL_SIZE_SHIFT;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
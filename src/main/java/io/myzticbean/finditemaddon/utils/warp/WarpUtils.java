@@ -28,11 +28,28 @@ import lombok.experimental.UtilityClass;
  */
 @UtilityClass
 public class WarpUtils {
+
+    /**
+     * Reloads all warps
+     */
     public static void updateWarps() {
+        updateWarps(true);
+    }
+
+    /**
+     * Periodic reload, skips EssentialsX warps once changes to them are tracked
+     */
+    public static void refreshWarps() {
+        updateWarps(false);
+    }
+
+    private static void updateWarps(boolean isFullReload) {
         if(FindItemAddOn.getConfigProvider().shopGUIItemLoreHasKey("{NEAREST_WARP}")) {
             if(FindItemAddOn.getConfigProvider().NEAREST_WARP_MODE == 1 && EssentialsXPlugin.isEnabled()) {
-                EssentialsXPlugin.updateAllWarps();
-
+                if(isFullReload || !EssentialsWarpsWatcher.isWatching()) {
+                    EssentialsXPlugin.updateAllWarps();
+                    EssentialsWarpsWatcher.start();
+                }
             }
             else if(FindItemAddOn.getConfigProvider().NEAREST_WARP_MODE == 2 && PlayerWarpsPlugin.getIsEnabled()) {
                 PlayerWarpsPlugin.updateAllWarpsFromAPI();